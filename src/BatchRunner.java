@@ -0,0 +1,169 @@
+import embed.CompiledProgram;
+import embed.ExecutionContext;
+import runtime.Input;
+import runtime.Output;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Runs many independent programs in one JVM: --batch <directory | glob> [--batch-out <directory>].
+// Every script is its own task, on a virtual thread where the JVM has them and otherwise on a
+// ForkJoinPool with one thread per core. Each gets its own variables, an empty DAWAT input and
+// its own output buffer; output is printed in script order, or written to <out>/<script>.out.
+final class BatchRunner {
+    private final Path base;
+    private final List<Path> scripts;
+    private final Path outputDirectory;
+
+    // A directory means every .txt file directly in it; anything else is a glob such as
+    // programs/**/*.txt, matched below the part of it that has no wildcards. Unlike a plain
+    // PathMatcher, **/ also matches no directories at all, so that glob includes programs/a.txt.
+    BatchRunner(String pattern, Path outputDirectory) throws IOException {
+        this.outputDirectory = outputDirectory;
+        if (Files.isDirectory(Paths.get(pattern))) {
+            base = Paths.get(pattern);
+            pattern = "*.txt";
+        } else {
+            String literal = pattern.replaceAll("[*?\\[{].*", "");
+            base = literal.endsWith("/") ? Paths.get(literal) : parentOf(Paths.get(literal));
+            pattern = base.relativize(Paths.get(pattern)).toString();
+        }
+
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String glob : withoutAnyDirectories(pattern)) {
+            matchers.add(base.getFileSystem().getPathMatcher("glob:" + glob));
+        }
+        try (Stream<Path> files = Files.walk(base)) {
+            scripts = files.filter(Files::isRegularFile)
+                    .filter(file -> matchers.stream().anyMatch(matcher -> matcher.matches(base.relativize(file))))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // The glob, and the glob with each combination of its **/ parts left out
+    private static Set<String> withoutAnyDirectories(String glob) {
+        Set<String> globs = new LinkedHashSet<>();
+        globs.add(glob);
+        int wildcard = glob.indexOf("**/");
+        if (wildcard >= 0) {
+            String rest = glob.substring(wildcard + 3);
+            for (String tail : withoutAnyDirectories(rest)) {
+                globs.add(glob.substring(0, wildcard + 3) + tail);
+                globs.add(glob.substring(0, wildcard) + tail);
+            }
+        }
+        return globs;
+    }
+
+    private static Path parentOf(Path path) {
+        Path parent = path.getParent();
+        return parent != null ? parent : Paths.get("");
+    }
+
+    void run() throws IOException, InterruptedException {
+        if (outputDirectory != null) {
+            Files.createDirectories(outputDirectory);
+        }
+
+        boolean virtual = true;
+        ExecutorService workers;
+        try {
+            workers = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            virtual = false;  // before JDK 21
+            workers = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+
+        long start = System.nanoTime();
+        List<Future<Result>> results = new ArrayList<>(scripts.size());
+        for (Path script : scripts) {
+            results.add(workers.submit(() -> run(script)));
+        }
+
+        int failed = 0;
+        try {
+            for (Future<Result> future : results) {
+                Result result = future.get();
+                if (result.output != null) {
+                    System.out.println("==> " + result.script + " <==");
+                    System.out.write(result.output, 0, result.output.length);
+                    System.out.flush();
+                }
+                if (result.error != null) {
+                    failed++;
+                }
+                System.err.printf("[batch] %s %.3f ms %s%n", result.script, result.nanos / 1e6,
+                        result.error != null ? "error: " + result.error : "ok");
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            workers.shutdown();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int count = scripts.size();
+        System.err.printf("[batch] %d scripts (%d failed) in %.3f s, %.0f scripts/s on %s%n",
+                count, failed, seconds, count / seconds,
+                virtual ? "virtual threads" : Runtime.getRuntime().availableProcessors() + " threads");
+    }
+
+    // Anything one script does wrong, from a read error to running out of stack or memory,
+    // fails that script alone and the batch goes on
+    private Result run(Path script) {
+        long start = System.nanoTime();
+        ByteArrayOutputStream buffer = outputDirectory == null ? new ByteArrayOutputStream() : null;
+        String error = null;
+
+        try (OutputStream target = buffer != null ? buffer : Files.newOutputStream(outputFor(script));
+             Input input = new Input(Channels.newChannel(InputStream.nullInputStream()), ExecutionContext.CAPACITY)) {
+            // As for embedded runs: no DAWAT prompt in the captured output, which
+            // CompiledProgram.run writes out when the run ends, failed or not
+            Output output = new Output(Channels.newChannel(target), ExecutionContext.CAPACITY);
+            output.batch();
+            try {
+                CompiledProgram.compile(script).run(new ExecutionContext(output, input));
+            } catch (Throwable e) {
+                error = messageOf(e);
+            }
+        } catch (Throwable e) {
+            if (error == null) {
+                error = messageOf(e);
+            }
+        }
+        return new Result(script, buffer != null ? buffer.toByteArray() : null, error, System.nanoTime() - start);
+    }
+
+    // Bisaya++ errors are RuntimeExceptions with a message meant for the user; anything else
+    // keeps its type, which a bare message such as a file name would not explain
+    private static String messageOf(Throwable e) {
+        return e instanceof RuntimeException && e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
+    // Mirrors the script's place below the base directory, so equal names cannot collide
+    private Path outputFor(Path script) throws IOException {
+        Path output = outputDirectory.resolve(base.relativize(script).toString() + ".out");
+        Files.createDirectories(parentOf(output));
+        return output;
+    }
+
+    private static final class Result {
+        final Path script;
+        final byte[] output;
+        final String error;
+        final long nanos;
+
+        Result(Path script, byte[] output, String error, long nanos) {
+            this.script = script;
+            this.output = output;
+            this.error = error;
+            this.nanos = nanos;
+        }
+    }
+}
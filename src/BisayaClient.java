@@ -0,0 +1,78 @@
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+// Thin client for BisayaDaemon: bisaya [--socket <path>] [--input <file>] <program.txt | ->
+// Sends the program's path, or with - its source from stdin, together with the DAWAT input
+// (the --input file, otherwise piped stdin), then copies the output back.
+public class BisayaClient {
+    public static void main(String[] args) throws IOException {
+        Path socket = BisayaDaemon.defaultSocket();
+        String inputName = null;
+        String fileName = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--socket") && i + 1 < args.length) {
+                socket = Paths.get(args[++i]);
+            } else if (args[i].equals("--input") && i + 1 < args.length) {
+                inputName = args[++i];
+            } else {
+                fileName = args[i];
+            }
+        }
+
+        if (fileName == null) {
+            System.out.println("Usage: bisaya [--socket <path>] [--input <file>] <program.txt | ->");
+            return;
+        }
+
+        byte kind;
+        byte[] program;
+        byte[] input = new byte[0];
+        if (fileName.equals("-")) {
+            kind = BisayaDaemon.SOURCE;
+            program = System.in.readAllBytes();
+        } else {
+            kind = BisayaDaemon.PATH;
+            program = Paths.get(fileName).toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8);
+            if (inputName == null && System.console() == null) {
+                input = System.in.readAllBytes();
+            }
+        }
+        if (inputName != null) {
+            input = Files.readAllBytes(Paths.get(inputName));
+        }
+
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeByte(kind);
+            out.writeInt(program.length);
+            out.write(program);
+            out.writeInt(input.length);
+            out.write(input);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            while (true) {
+                byte tag = in.readByte();
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                if (tag == BisayaDaemon.OUTPUT) {
+                    System.out.write(payload);
+                } else if (tag == BisayaDaemon.ERROR) {
+                    System.out.flush();
+                    System.err.println(new String(payload, StandardCharsets.UTF_8));
+                } else if (tag == BisayaDaemon.EXIT) {
+                    System.out.flush();
+                    System.exit(ByteBuffer.wrap(payload).getInt());
+                }
+            }
+        }
+    }
+}
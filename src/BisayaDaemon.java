@@ -0,0 +1,237 @@
+import embed.CompiledProgram;
+import embed.ExecutionContext;
+import runtime.Input;
+import runtime.Output;
+import vm.ChunkCache;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Resident interpreter: bisayad [socket path]. Keeps one JVM warm and serves BisayaClient
+// requests over a Unix domain socket. Each request runs with its own variables, input and
+// output; compiled programs are kept in an LRU keyed by source hash, so a program that is
+// run often ends up on JIT code.
+//
+// A PATH request reads the file as the daemon's user, so the socket lives in a directory
+// only that user can enter: $XDG_RUNTIME_DIR/bisaya, or ~/.cache/bisaya without one.
+//
+// Request:  byte kind (PATH or SOURCE), int length + UTF-8 path or source,
+//           int length + the bytes DAWAT reads.
+// Response: frames of byte tag, int length, bytes; OUTPUT frames carry program output,
+//           ERROR carries a message, and EXIT (payload: int status) ends the response.
+public class BisayaDaemon {
+    static final byte PATH = 1, SOURCE = 2;
+    static final byte OUTPUT = 'O', ERROR = 'E', EXIT = 'X';
+
+    private static final int MAX_PROGRAMS = Integer.getInteger("bisaya.daemon.programs", 256);
+    private static final int MAX_REQUEST_BYTES = Integer.getInteger("bisaya.daemon.max-request", 64 << 20);
+    private static final int THREADS = Integer.getInteger("bisaya.daemon.threads",
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    private static final long REQUEST_TIMEOUT_MILLIS = Long.getLong("bisaya.daemon.request-timeout", 10_000);
+
+    private final Map<String, CompiledProgram> programs = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledProgram> eldest) {
+            return size() > MAX_PROGRAMS;
+        }
+    };
+
+    private final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "bisayad-deadlines");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static void main(String[] args) throws IOException {
+        Path socket = args.length > 0 ? Paths.get(args[0]) : defaultSocket();
+        new BisayaDaemon().serve(socket);
+    }
+
+    static Path defaultSocket() {
+        String runtime = System.getenv("XDG_RUNTIME_DIR");
+        Path directory = runtime != null && !runtime.isEmpty()
+                ? Paths.get(runtime, "bisaya")
+                : Paths.get(System.getProperty("user.home"), ".cache", "bisaya");
+        return directory.resolve("bisayad.sock");
+    }
+
+    public void serve(Path socket) throws IOException {
+        createPrivateDirectory(socket.toAbsolutePath().getParent());
+        // A socket file that still accepts connections belongs to a running daemon; only a
+        // stale one, left behind by a daemon that died, is removed
+        if (listening(socket)) {
+            throw new IOException("A daemon is already listening on " + socket);
+        }
+        Files.deleteIfExists(socket);
+        // At most THREADS requests at a time; further clients wait in the listen backlog
+        // until a worker is free instead of each getting a thread of its own
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        Semaphore free = new Semaphore(THREADS);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            if (posix()) {
+                Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+            }
+            System.out.println("Listening on " + socket);
+            while (true) {
+                free.acquireUninterruptibly();
+                SocketChannel client = server.accept();
+                workers.execute(() -> {
+                    try {
+                        handle(client);
+                    } finally {
+                        free.release();
+                    }
+                });
+            }
+        } finally {
+            workers.shutdown();
+            deadlines.shutdown();
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    // The default directory is also tightened if it already exists (the chunk cache may have
+    // made ~/.cache/bisaya); a directory named on the command line is the user's own choice
+    private static void createPrivateDirectory(Path directory) throws IOException {
+        if (!posix()) {
+            Files.createDirectories(directory);
+            return;
+        }
+        Set<PosixFilePermission> owner = PosixFilePermissions.fromString("rwx------");
+        Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(owner));
+        if (directory.equals(defaultSocket().getParent())) {
+            Files.setPosixFilePermissions(directory, owner);
+        }
+    }
+
+    private static boolean posix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+
+    private static boolean listening(Path socket) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Whatever a request or its program does, including running out of stack or memory, it
+    // ends in an ERROR frame for that client and the daemon keeps serving the others
+    private void handle(SocketChannel client) {
+        try (SocketChannel channel = client) {
+            int status = 0;
+            Output output = new Output(new FrameChannel(channel, OUTPUT));
+            try {
+                // A client that connects and then sends nothing would hold a worker forever, so
+                // the channel is closed if the request has not arrived in time. Only reading the
+                // request is timed; the program itself may run as long as it likes.
+                ScheduledFuture<?> deadline = deadlines.schedule(() -> {
+                    try {
+                        client.close();
+                    } catch (IOException e) {
+                        // Closed already
+                    }
+                }, REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+                byte kind = in.readByte();
+                byte[] program = readBytes(in);
+                byte[] input = readBytes(in);
+                deadline.cancel(false);
+                lookup(kind, program).run(new ExecutionContext(output,
+                        new Input(Channels.newChannel(new ByteArrayInputStream(input)))));
+            } catch (Throwable e) {
+                output.flush();
+                String message = e.getMessage() != null ? e.getMessage() : e.toString();
+                new FrameChannel(channel, ERROR).write(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+                status = 1;
+            }
+            new FrameChannel(channel, EXIT).write(ByteBuffer.allocate(4).putInt(0, status));
+        } catch (IOException | UncheckedIOException e) {
+            // The client went away; nothing to report to
+        }
+    }
+
+    // Lengths come from the client, so they are checked before anything is allocated
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_REQUEST_BYTES) {
+            throw new IOException("Bad request: a length of " + length + " bytes (the limit is " + MAX_REQUEST_BYTES + ")");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private CompiledProgram lookup(byte kind, byte[] program) throws IOException {
+        ByteBuffer source;
+        if (kind == PATH) {
+            // Read with the daemon's permissions, which is only safe because nobody but its
+            // own user can reach the socket (see defaultSocket)
+            Path path = Paths.get(new String(program, StandardCharsets.UTF_8));
+            try {
+                source = ByteBuffer.wrap(Files.readAllBytes(path));
+            } catch (NoSuchFileException e) {
+                throw new IOException("file not found: " + path);
+            }
+        } else {
+            source = ByteBuffer.wrap(program);
+        }
+        String key = ChunkCache.key(source.duplicate(), true);
+
+        synchronized (programs) {
+            CompiledProgram compiled = programs.get(key);
+            if (compiled != null) {
+                return compiled;
+            }
+        }
+        CompiledProgram compiled = CompiledProgram.compile(
+                new InputStreamReader(new ByteArrayInputStream(source.array()), StandardCharsets.UTF_8));
+        synchronized (programs) {
+            programs.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    // Writes everything it is given to the socket as one frame with the given tag
+    private static final class FrameChannel implements WritableByteChannel {
+        private final SocketChannel socket;
+        private final byte tag;
+
+        FrameChannel(SocketChannel socket, byte tag) {
+            this.socket = socket;
+            this.tag = tag;
+        }
+
+        @Override
+        public int write(ByteBuffer bytes) throws IOException {
+            int length = bytes.remaining();
+            ByteBuffer header = ByteBuffer.allocate(5).put(tag).putInt(length).flip();
+            ByteBuffer[] frame = {header, bytes};
+            while (header.hasRemaining() || bytes.hasRemaining()) {
+                socket.write(frame);
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return socket.isOpen();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import ast.Program;
+import jit.AheadOfTimeCompiler;
+import lexer.Lexer;
+import lexer.TokenStream;
+import optimizer.Optimizer;
+import parser.Parser;
+import resolver.Resolver;
+import vm.Chunk;
+import vm.Compiler;
+
+import java.io.*;
+import java.nio.file.*;
+
+// Ahead-of-time compiler: bisayac <program.txt> [-o <output.jar | output.class>]
+public class Bisayac {
+    public static void main(String[] args) {
+        String fileName = null;
+        String outputName = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-o") && i + 1 < args.length) {
+                outputName = args[++i];
+            } else {
+                fileName = args[i];
+            }
+        }
+
+        if (fileName == null) {
+            System.out.println("Usage: bisayac <program.txt> [-o <output.jar | output.class>]");
+            return;
+        }
+
+        String className = classNameFor(fileName);
+        if (outputName == null) {
+            outputName = className + ".jar";
+        }
+
+        try {
+            Program parsed;
+            try (Reader source = Files.newBufferedReader(Paths.get(fileName))) {
+                parsed = new Parser(new TokenStream(new Lexer(source))).parse();
+            }
+            Program program = new Optimizer().optimize(new Resolver().resolve(parsed));
+            Chunk chunk = new Compiler().compile(program);
+
+            Path output = Paths.get(outputName);
+            if (outputName.endsWith(".class")) {
+                className = classNameFor(outputName);
+                AheadOfTimeCompiler.writeClass(chunk, className, output);
+            } else {
+                AheadOfTimeCompiler.writeJar(chunk, className, output);
+            }
+            System.out.println("Compiled " + fileName + " to " + output + " (main class " + className + ")");
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalStateException e) {
+            // The translator's limits, e.g. a program over the JVM's 64 KB method size
+            System.out.println("Cannot compile " + fileName + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // test.txt -> Test, my-report.txt -> My_report
+    private static String classNameFor(String fileName) {
+        String base = Paths.get(fileName).getFileName().toString();
+        int dot = base.lastIndexOf('.');
+        if (dot > 0) {
+            base = base.substring(0, dot);
+        }
+
+        StringBuilder name = new StringBuilder();
+        for (char c : base.toCharArray()) {
+            name.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        if (name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            name.insert(0, 'P');
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+}
@@ -90,6 +90,10 @@ public class ErrorHandler {
         throw new RuntimeException("Division by zero");
     }
 
+    public static void handleIntegerOverflow() {
+        throw new RuntimeException("Integer overflow: result does not fit in a NUMERO");
+    }
+
     public static void handleUnknownOperator(String operator) {
         throw new RuntimeException("Unknown operator: " + operator);
     }
@@ -1,45 +1,213 @@
+import ast.Program;
+import ast.Statement;
+import interpreter.Interpreter;
+import jit.TieredExecutor;
 import lexer.Lexer;
-import lexer.Token;
+import lexer.MappedSourceReader;
+import lexer.ParallelLexer;
+import lexer.TokenBuffer;
+import lexer.TokenStream;
+import optimizer.Optimizer;
 import parser.Parser;
+import resolver.Resolver;
+import runtime.Frame;
+import runtime.Input;
+import runtime.Output;
+import vm.Chunk;
+import vm.ChunkCache;
+import vm.Compiler;
+import vm.VM;
 
 import java.io.*;
 import java.nio.file.*;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
     public static void main(String[] args) {
 
         String fileName = "test.txt";
+        boolean interpret = false; // --interpret walks the AST instead of running bytecode
+        boolean jit = false;       // --jit compiles straight to JVM bytecode
+        boolean optimize = true;   // --no-optimize runs the program exactly as written
+        boolean reportFolds = false; // --report-folds lists what the optimizer changed on stderr
+        boolean mmap = false;      // --mmap lexes the source straight from a memory-mapped file
+        boolean parallelLex = false; // --parallel-lex lexes a mapped source in pieces on all cores
+        boolean stream = false;    // --stream interprets each statement as soon as it is parsed
+        String inputName = null;   // --input <file> answers DAWAT from a file instead of stdin
+        boolean records = false;   // --records <file> runs the program once per line of the file
+        boolean useCache = false;  // --cache reuses compiled programs from an on-disk cache
+        String batch = null;       // --batch <directory | glob> runs every matching program; ** spans zero or more directories
+        String batchOutput = null; // --batch-out <directory> writes each program's output to a file
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--input") && i + 1 < args.length) {
+                inputName = args[++i];
+            } else if (arg.equals("--records") && i + 1 < args.length) {
+                inputName = args[++i];
+                records = true;
+            } else if (arg.equals("--batch") && i + 1 < args.length) {
+                batch = args[++i];
+            } else if (arg.equals("--batch-out") && i + 1 < args.length) {
+                batchOutput = args[++i];
+            } else if (arg.equals("--interpret")) {
+                interpret = true;
+            } else if (arg.equals("--jit")) {
+                jit = true;
+            } else if (arg.equals("--no-optimize")) {
+                optimize = false;
+            } else if (arg.equals("--report-folds")) {
+                reportFolds = true;
+            } else if (arg.equals("--cache")) {
+                useCache = true;
+            } else if (arg.equals("--mmap")) {
+                mmap = true;
+            } else if (arg.equals("--parallel-lex")) {
+                parallelLex = true;
+            } else if (arg.equals("--stream")) {
+                stream = true;
+            } else {
+                fileName = arg;
+            }
+        }
+
+        if (batch != null) {
+            try {
+                new BatchRunner(batch, batchOutput != null ? Paths.get(batchOutput) : null).run();
+            } catch (IOException e) {
+                System.out.println("Error reading file: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+
+        if (stream) {
+            try {
+                runStreaming(Paths.get(fileName), mmap, inputName);
+            } catch (IOException e) {
+                System.out.println("Error reading file: " + e.getMessage());
+            }
+            return;
+        }
 
         try {
-            String input = Files.readString(Paths.get(fileName));
-
-            Lexer lexer = new Lexer(input);
-            List<Token> tokens = lexer.tokenize();
-
-            /*
-           System.out.println("Tokens:");
-            for (lexer.Token token : tokens) {
-               System.out.println(token);
-            }
-            */
-           /* public lexer.Lexer(String input) {
-                this.input = input
-                        .replace("‘", "'")   // Left single quote
-                        .replace("’", "'")   // Right single quote
-                        .replace("“", "\"")  // Left double quote
-                        .replace("”", "\""); // Right double quote
-                this.position = 0;
-                this.tokens = new ArrayList<>();
-            }
-            */
-            System.out.println("\nExecuting Bisaya++ Code:\n");
-            System.out.println();
-            System.out.println("no error");
-            Parser parser = new Parser(tokens);
-            parser.parse();
+            Path path = Paths.get(fileName);
+            // The interpreter needs the AST and fold reports need the optimizer, so neither is cached
+            ChunkCache cache = useCache && !interpret && !reportFolds ? ChunkCache.standard() : null;
+            String key = cache != null ? ChunkCache.key(path, optimize) : null;
+            Chunk chunk = cache != null ? cache.load(key) : null;
+            Program program = null;
+
+            if (chunk != null) {
+                printBanner();
+            } else {
+                program = compileFrontEnd(path, mmap, parallelLex, optimize, reportFolds);
+                if (!interpret) {
+                    chunk = new Compiler().compile(program);
+                    if (cache != null) {
+                        cache.store(key, chunk);
+                    }
+                }
+            }
+
+            Output output = Output.standard();
+            try (Input input = inputName != null ? Input.open(Paths.get(inputName)) : Input.standard()) {
+                if (records) {
+                    runRecords(program, chunk, output, input);
+                } else if (interpret) {
+                    new Interpreter(output, input).execute(program);
+                } else if (jit) {
+                    new TieredExecutor(chunk, 1).run(output, input);
+                } else {
+                    new VM(chunk, new Frame(chunk.slotTypes), output, input).run();
+                }
+            }
         } catch (IOException e) {
             System.out.println("Error reading file: " + e.getMessage());
         }
     }
+
+    // Lexes, parses, resolves and (unless disabled) optimizes the source
+    private static Program compileFrontEnd(Path path, boolean mmap, boolean parallelLex,
+                                           boolean optimize, boolean reportFolds) throws IOException {
+        // The parser pulls tokens from the lexer as it goes; no token list is built
+        Program parsed;
+        if (parallelLex) {
+            TokenBuffer tokens = ParallelLexer.tokenize(path, ForkJoinPool.commonPool());
+            printBanner();
+            parsed = new Parser(tokens).parse();
+        } else {
+            try (Reader source = mmap ? new MappedSourceReader(path) : Files.newBufferedReader(path)) {
+                printBanner();
+                parsed = new Parser(new TokenStream(new Lexer(source))).parse();
+            }
+        }
+        Program program = new Resolver().resolve(parsed);
+        if (optimize) {
+            Optimizer optimizer = new Optimizer();
+            program = optimizer.optimize(program);
+            if (reportFolds) {
+                for (String fold : optimizer.report()) {
+                    System.err.println("[fold] " + fold);
+                }
+            }
+        }
+        return program;
+    }
+
+    // Parses, resolves and interprets one top-level statement at a time, so output starts
+    // before the end of the source has been read and neither the tokens nor the AST of the
+    // whole program are ever held. The optimizer needs the whole program and is skipped, and
+    // an error further down is only found once everything before it has run.
+    private static void runStreaming(Path path, boolean mmap, String inputName) throws IOException {
+        try (Reader source = mmap ? new MappedSourceReader(path) : Files.newBufferedReader(path);
+             Input input = inputName != null ? Input.open(Paths.get(inputName)) : Input.standard()) {
+            printBanner();
+            Parser parser = new Parser(new TokenStream(new Lexer(source)));
+            Resolver resolver = new Resolver();
+            new Interpreter(Output.standard(), input).execute(() -> {
+                Statement statement = parser.next();
+                return statement != null ? resolver.resolveNext(statement) : null;
+            });
+        }
+    }
+
+    // Runs the program once per input record, each time with fresh variables, with all output
+    // in one buffer. Without a chunk the interpreter runs it; otherwise the VM hands over to
+    // the JIT once the program is hot.
+    private static void runRecords(Program program, Chunk chunk, Output output, Input input) {
+        output.batch();
+        Interpreter interpreter = chunk == null ? new Interpreter(output, input) : null;
+        TieredExecutor executor = chunk != null ? new TieredExecutor(chunk) : null;
+
+        long count = 0;
+        long start = System.nanoTime();
+        try {
+            while (input.hasMore()) {
+                long lines = input.lines();
+                if (interpreter != null) {
+                    interpreter.execute(program);
+                } else {
+                    executor.run(output, input);
+                }
+                count++;
+                if (input.lines() == lines) {
+                    break; // no DAWAT, so the records would never be consumed
+                }
+            }
+        } finally {
+            output.flush();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("[records] %d records in %.3f s, %.0f records/s, %.2f us/record%n",
+                count, seconds, count / seconds, count == 0 ? 0 : seconds * 1e6 / count);
+    }
+
+    private static void printBanner() {
+        System.out.println("\nExecuting Bisaya++ Code:\n");
+        System.out.println();
+        System.out.println("no error");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package ast;
+
+import java.util.List;
+
+// x = y = <expr>: targets are stored outermost first, the value is computed for the last one
+public final class Assignment extends Statement {
+    public final List<String> targets;
+    public final int[] slots; // null until resolved
+    public final Type type;   // shared type of all targets, null until resolved
+    public final Expression value;
+
+    public Assignment(List<String> targets, Expression value) {
+        this(targets, null, null, value);
+    }
+
+    public Assignment(List<String> targets, int[] slots, Type type, Expression value) {
+        this.targets = List.copyOf(targets);
+        this.slots = slots;
+        this.type = type;
+        this.value = value;
+    }
+
+    @Override
+    public <R> R accept(StatementVisitor<R> visitor) {
+        return visitor.visitAssignment(this);
+    }
+}
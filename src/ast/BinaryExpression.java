@@ -0,0 +1,18 @@
+package ast;
+
+public final class BinaryExpression extends Expression {
+    public final Operator operator;
+    public final Expression left;
+    public final Expression right;
+
+    public BinaryExpression(Operator operator, Expression left, Expression right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitBinaryExpression(this);
+    }
+}
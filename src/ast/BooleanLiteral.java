@@ -0,0 +1,14 @@
+package ast;
+
+public final class BooleanLiteral extends Expression {
+    public final boolean value;
+
+    public BooleanLiteral(boolean value) {
+        this.value = value;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitBooleanLiteral(this);
+    }
+}
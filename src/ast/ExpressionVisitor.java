@@ -0,0 +1,17 @@
+package ast;
+
+public interface ExpressionVisitor<R> {
+    R visitIntegerLiteral(IntegerLiteral expression);
+
+    R visitNumberLiteral(NumberLiteral expression);
+
+    R visitBooleanLiteral(BooleanLiteral expression);
+
+    R visitStringLiteral(StringLiteral expression);
+
+    R visitVariable(Variable expression);
+
+    R visitUnaryExpression(UnaryExpression expression);
+
+    R visitBinaryExpression(BinaryExpression expression);
+}
@@ -0,0 +1,29 @@
+package ast;
+
+import java.util.List;
+
+// KUNG (..) PUNDOK{..} followed by any number of KUNG DILI arms and an optional KUNG WALA
+public final class IfStatement extends Statement {
+    public final List<Branch> branches;
+    public final List<Statement> otherwise; // null when there is no KUNG WALA
+
+    public IfStatement(List<Branch> branches, List<Statement> otherwise) {
+        this.branches = List.copyOf(branches);
+        this.otherwise = otherwise == null ? null : List.copyOf(otherwise);
+    }
+
+    @Override
+    public <R> R accept(StatementVisitor<R> visitor) {
+        return visitor.visitIfStatement(this);
+    }
+
+    public static final class Branch {
+        public final Expression condition;
+        public final List<Statement> body;
+
+        public Branch(Expression condition, List<Statement> body) {
+            this.condition = condition;
+            this.body = List.copyOf(body);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ast;
+
+import java.util.List;
+
+public final class InputStatement extends Statement {
+    public final List<String> names;
+    public final String[] fieldNames; // names as Input.read takes them, one per input field
+    public final int[] slots; // null until resolved
+
+    public InputStatement(List<String> names) {
+        this(names, null);
+    }
+
+    public InputStatement(List<String> names, int[] slots) {
+        this.names = List.copyOf(names);
+        this.fieldNames = names.toArray(new String[0]);
+        this.slots = slots;
+    }
+
+    @Override
+    public <R> R accept(StatementVisitor<R> visitor) {
+        return visitor.visitInputStatement(this);
+    }
+}
@@ -0,0 +1,14 @@
+package ast;
+
+public final class IntegerLiteral extends Expression {
+    public final long value;
+
+    public IntegerLiteral(long value) {
+        this.value = value;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitIntegerLiteral(this);
+    }
+}
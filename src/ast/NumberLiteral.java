@@ -0,0 +1,14 @@
+package ast;
+
+public final class NumberLiteral extends Expression {
+    public final double value;
+
+    public NumberLiteral(double value) {
+        this.value = value;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitNumberLiteral(this);
+    }
+}
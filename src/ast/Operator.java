@@ -0,0 +1,54 @@
+package ast;
+
+public enum Operator {
+    ADD("+", 5),
+    SUB("-", 5),
+    MUL("*", 6),
+    DIV("/", 6),
+    MOD("%", 6),
+    LT("<", 4),
+    GT(">", 4),
+    LE("<=", 4),
+    GE(">=", 4),
+    EQ("==", 4),
+    NE("<>", 4),
+    AND("UG", 3),
+    OR("O", 2),
+    NEG("-", 7),
+    NOT("DILI", 7);
+
+    public final String symbol;
+    public final int precedence;
+
+    Operator(String symbol, int precedence) {
+        this.symbol = symbol;
+        this.precedence = precedence;
+    }
+
+    public boolean isArithmetic() {
+        return this == ADD || this == SUB || this == MUL || this == DIV || this == MOD || this == NEG;
+    }
+
+    public boolean isComparison() {
+        return precedence == 4;
+    }
+
+    public static Operator binary(String symbol) {
+        switch (symbol) {
+            case "+": return ADD;
+            case "-": return SUB;
+            case "*": return MUL;
+            case "/": return DIV;
+            case "%": return MOD;
+            case "<": return LT;
+            case ">": return GT;
+            case "<=": return LE;
+            case ">=": return GE;
+            case "==": return EQ;
+            case "<>": return NE;
+            case "UG": return AND;
+            case "O": return OR;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ast;
+
+import java.util.List;
+
+public final class PrintStatement extends Statement {
+    public final List<Segment> segments;
+
+    public PrintStatement(List<Segment> segments) {
+        this.segments = List.copyOf(segments);
+    }
+
+    @Override
+    public <R> R accept(StatementVisitor<R> visitor) {
+        return visitor.visitPrintStatement(this);
+    }
+
+    public enum SegmentKind {
+        TEXT,       // literal text, already concatenated at parse time
+        NEWLINE,    // '$'
+        VARIABLE,   // a variable printed according to its declared type
+        EXPRESSION  // an arithmetic expression printed as a number
+    }
+
+    public static final class Segment {
+        public final SegmentKind kind;
+        public final String text;
+        public final Expression expression;
+
+        private Segment(SegmentKind kind, String text, Expression expression) {
+            this.kind = kind;
+            this.text = text;
+            this.expression = expression;
+        }
+
+        public static Segment text(String text) {
+            return new Segment(SegmentKind.TEXT, text, null);
+        }
+
+        public static Segment newline() {
+            return new Segment(SegmentKind.NEWLINE, null, null);
+        }
+
+        public static Segment variable(String name) {
+            return variable(new Variable(name));
+        }
+
+        public static Segment variable(Variable variable) {
+            return new Segment(SegmentKind.VARIABLE, variable.name, variable);
+        }
+
+        public static Segment expression(Expression expression) {
+            return new Segment(SegmentKind.EXPRESSION, null, expression);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ast;
+
+import java.util.List;
+
+public final class Program {
+    public final List<Statement> statements;
+    // Frame layout, filled in by the Resolver: one entry per variable slot
+    public final String[] slotNames;
+    public final Type[] slotTypes;
+
+    public Program(List<Statement> statements) {
+        this(statements, null, null);
+    }
+
+    public Program(List<Statement> statements, String[] slotNames, Type[] slotTypes) {
+        this.statements = List.copyOf(statements);
+        this.slotNames = slotNames;
+        this.slotTypes = slotTypes;
+    }
+
+    public boolean isResolved() {
+        return slotNames != null;
+    }
+}
@@ -0,0 +1,5 @@
+package ast;
+
+public abstract class Statement {
+    public abstract <R> R accept(StatementVisitor<R> visitor);
+}
@@ -0,0 +1,15 @@
+package ast;
+
+public interface StatementVisitor<R> {
+    R visitVariableDeclaration(VariableDeclaration statement);
+
+    R visitAssignment(Assignment statement);
+
+    R visitPrintStatement(PrintStatement statement);
+
+    R visitInputStatement(InputStatement statement);
+
+    R visitIfStatement(IfStatement statement);
+
+    R visitSwitchStatement(SwitchStatement statement);
+}
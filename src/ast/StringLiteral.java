@@ -0,0 +1,14 @@
+package ast;
+
+public final class StringLiteral extends Expression {
+    public final String value;
+
+    public StringLiteral(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitStringLiteral(this);
+    }
+}
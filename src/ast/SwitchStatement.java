@@ -0,0 +1,28 @@
+package ast;
+
+import java.util.List;
+
+// A KUNG chain whose arms all test one NUMERO variable against a constant. The arm to run is
+// found with a single lookup in the sorted key table instead of testing each condition in turn.
+// Built by the Optimizer from an IfStatement; keys are unique, the first arm for a value wins.
+public final class SwitchStatement extends Statement {
+    public final Variable selector;
+    public final long[] keys;               // ascending
+    public final int[] arms;                // index into bodies for each key
+    public final List<List<Statement>> bodies;
+    public final List<Statement> otherwise; // null when there is no KUNG WALA
+
+    public SwitchStatement(Variable selector, long[] keys, int[] arms, List<List<Statement>> bodies,
+                           List<Statement> otherwise) {
+        this.selector = selector;
+        this.keys = keys;
+        this.arms = arms;
+        this.bodies = List.copyOf(bodies);
+        this.otherwise = otherwise == null ? null : List.copyOf(otherwise);
+    }
+
+    @Override
+    public <R> R accept(StatementVisitor<R> visitor) {
+        return visitor.visitSwitchStatement(this);
+    }
+}
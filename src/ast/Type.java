@@ -0,0 +1,23 @@
+package ast;
+
+// Declared type of a variable, fixed at resolve time
+public enum Type {
+    NUMERO,
+    TIPIK,
+    TINUOD,
+    LETRA;
+
+    public boolean isNumeric() {
+        return this == NUMERO || this == TIPIK;
+    }
+
+    // Any type name other than the numeric and boolean ones holds text, as before
+    public static Type of(String name) {
+        switch (name) {
+            case "NUMERO": return NUMERO;
+            case "TIPIK": return TIPIK;
+            case "TINUOD": return TINUOD;
+            default: return LETRA;
+        }
+    }
+}
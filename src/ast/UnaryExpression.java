@@ -0,0 +1,16 @@
+package ast;
+
+public final class UnaryExpression extends Expression {
+    public final Operator operator;
+    public final Expression operand;
+
+    public UnaryExpression(Operator operator, Expression operand) {
+        this.operator = operator;
+        this.operand = operand;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitUnaryExpression(this);
+    }
+}
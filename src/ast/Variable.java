@@ -0,0 +1,22 @@
+package ast;
+
+public final class Variable extends Expression {
+    public final String name;
+    public final int slot;   // -1 until resolved
+    public final Type type;  // null until resolved
+
+    public Variable(String name) {
+        this(name, -1, null);
+    }
+
+    public Variable(String name, int slot, Type type) {
+        this.name = name;
+        this.slot = slot;
+        this.type = type;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitVariable(this);
+    }
+}
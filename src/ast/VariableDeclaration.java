@@ -0,0 +1,35 @@
+package ast;
+
+import java.util.List;
+
+// MUGNA <type> a, b = <expr>, ...
+public final class VariableDeclaration extends Statement {
+    public final Type type;
+    public final List<Declarator> declarators;
+
+    public VariableDeclaration(Type type, List<Declarator> declarators) {
+        this.type = type;
+        this.declarators = List.copyOf(declarators);
+    }
+
+    @Override
+    public <R> R accept(StatementVisitor<R> visitor) {
+        return visitor.visitVariableDeclaration(this);
+    }
+
+    public static final class Declarator {
+        public final String name;
+        public final int slot;                 // -1 until resolved
+        public final Expression initializer;   // null when there is no '='
+
+        public Declarator(String name, Expression initializer) {
+            this(name, -1, initializer);
+        }
+
+        public Declarator(String name, int slot, Expression initializer) {
+            this.name = name;
+            this.slot = slot;
+            this.initializer = initializer;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package embed;
+
+import javax.script.*;
+import java.io.Reader;
+
+// javax.script binding over CompiledProgram. compile() parses once; the CompiledScript can
+// then be evaluated from many threads, each run reading from and writing to the
+// ScriptContext it is given. Bindings are not visible to Bisaya++ programs, which
+// declare all of their variables with MUGNA.
+public final class BisayaScriptEngine extends AbstractScriptEngine implements Compilable {
+    private final BisayaScriptEngineFactory factory;
+
+    BisayaScriptEngine(BisayaScriptEngineFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        return compile(script).eval(context);
+    }
+
+    @Override
+    public Object eval(Reader script, ScriptContext context) throws ScriptException {
+        return compile(script).eval(context);
+    }
+
+    @Override
+    public CompiledScript compile(String script) throws ScriptException {
+        try {
+            return new Script(this, CompiledProgram.compile(script));
+        } catch (RuntimeException e) {
+            throw scriptException(e);
+        }
+    }
+
+    @Override
+    public CompiledScript compile(Reader script) throws ScriptException {
+        try {
+            return new Script(this, CompiledProgram.compile(script));
+        } catch (RuntimeException e) {
+            throw scriptException(e);
+        }
+    }
+
+    // Keeps the Bisaya++ error message as the message and the exception itself as the cause
+    private static ScriptException scriptException(RuntimeException e) {
+        ScriptException error = new ScriptException(e.getMessage());
+        error.initCause(e);
+        return error;
+    }
+
+    @Override
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    private static final class Script extends CompiledScript {
+        private final ScriptEngine engine;
+        private final CompiledProgram program;
+
+        Script(ScriptEngine engine, CompiledProgram program) {
+            this.engine = engine;
+            this.program = program;
+        }
+
+        @Override
+        public Object eval(ScriptContext context) throws ScriptException {
+            try {
+                program.run(ExecutionContext.of(context.getReader(), context.getWriter()));
+            } catch (RuntimeException e) {
+                throw scriptException(e);
+            }
+            return null;
+        }
+
+        @Override
+        public ScriptEngine getEngine() {
+            return engine;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package embed;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import java.util.List;
+
+// Registered through META-INF/services, so new ScriptEngineManager().getEngineByName("bisaya")
+// finds it
+public final class BisayaScriptEngineFactory implements ScriptEngineFactory {
+    private static final List<String> NAMES = List.of("bisaya", "Bisaya++", "bisaya++");
+
+    @Override
+    public String getEngineName() {
+        return "Bisaya++ Interpreter";
+    }
+
+    @Override
+    public String getEngineVersion() {
+        return "1.0";
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return List.of("bisaya");
+    }
+
+    @Override
+    public List<String> getMimeTypes() {
+        return List.of();
+    }
+
+    @Override
+    public List<String> getNames() {
+        return NAMES;
+    }
+
+    @Override
+    public String getLanguageName() {
+        return "Bisaya++";
+    }
+
+    @Override
+    public String getLanguageVersion() {
+        return "1.0";
+    }
+
+    @Override
+    public Object getParameter(String key) {
+        switch (key) {
+            case ScriptEngine.ENGINE:
+                return getEngineName();
+            case ScriptEngine.ENGINE_VERSION:
+                return getEngineVersion();
+            case ScriptEngine.NAME:
+                return NAMES.get(0);
+            case ScriptEngine.LANGUAGE:
+                return getLanguageName();
+            case ScriptEngine.LANGUAGE_VERSION:
+                return getLanguageVersion();
+            case "THREADING":
+                return "MULTITHREADED";
+            default:
+                return null;
+        }
+    }
+
+    // Bisaya++ has no objects or methods, so there is no real syntax to give. This is the
+    // conventional object.method(args) form, for tools that only display it; it does not parse.
+    @Override
+    public String getMethodCallSyntax(String object, String method, String... args) {
+        return object + "." + method + "(" + String.join(", ", args) + ")";
+    }
+
+    // A string literal cannot hold a double quote, so quotes are joined in as LETRA literals
+    @Override
+    public String getOutputStatement(String toDisplay) {
+        StringBuilder statement = new StringBuilder("IPAKITA: \"");
+        for (char c : toDisplay.toCharArray()) {
+            statement.append(c == '"' ? "\" & '\"' & \"" : String.valueOf(c));
+        }
+        return statement.append('"').toString();
+    }
+
+    @Override
+    public String getProgram(String... statements) {
+        return "SUGOD\n" + String.join("\n", statements) + "\nKATAPUSAN\n";
+    }
+
+    @Override
+    public ScriptEngine getScriptEngine() {
+        return new BisayaScriptEngine(this);
+    }
+}
@@ -0,0 +1,66 @@
+package embed;
+
+import jit.TieredExecutor;
+import lexer.Lexer;
+import lexer.TokenStream;
+import optimizer.Optimizer;
+import parser.Parser;
+import resolver.Resolver;
+import vm.Chunk;
+import vm.Compiler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+// A program compiled once and run any number of times, from any number of threads at once.
+// Nothing here changes per run: each run gets its own variables from the ExecutionContext
+// it is given, and the shared executor only counts runs until it switches to JIT code.
+public final class CompiledProgram {
+    private final Chunk chunk;
+    private final TieredExecutor executor;
+
+    private CompiledProgram(Chunk chunk) {
+        this.chunk = chunk;
+        this.executor = new TieredExecutor(chunk);
+    }
+
+    public static CompiledProgram compile(String source) {
+        return compile(new Lexer(source));
+    }
+
+    public static CompiledProgram compile(Reader source) {
+        return compile(new Lexer(source));
+    }
+
+    public static CompiledProgram compile(Path source) throws IOException {
+        try (Reader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            return compile(reader);
+        }
+    }
+
+    private static CompiledProgram compile(Lexer lexer) {
+        return new CompiledProgram(new Compiler().compile(new Optimizer().optimize(
+                new Resolver().resolve(new Parser(new TokenStream(lexer)).parse()))));
+    }
+
+    public Chunk chunk() {
+        return chunk;
+    }
+
+    // A batch Output is only written out here, once the run has ended
+    public void run(ExecutionContext context) {
+        try {
+            executor.run(context.output, context.input);
+        } finally {
+            context.output.flush();
+        }
+    }
+
+    // Runs with the given DAWAT input and returns everything IPAKITA printed
+    public String run(String input) {
+        StringWriter output = new StringWriter();
+        run(ExecutionContext.of(new StringReader(input), output));
+        return output.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package embed;
+
+import runtime.Input;
+import runtime.Output;
+
+import java.io.*;
+import java.nio.channels.Channels;
+
+// Where one run of a CompiledProgram reads DAWAT input from and writes IPAKITA output to.
+// Contexts are cheap; make one per run and do not share it between threads. The factory
+// methods build batch Outputs: no DAWAT prompt ends up in the host's output, which is
+// written out when the run ends.
+public final class ExecutionContext {
+    public static final int CAPACITY = 1 << 12;
+
+    public final Output output;
+    public final Input input;
+
+    public ExecutionContext(Output output, Input input) {
+        this.output = output;
+        this.input = input;
+    }
+
+    public static ExecutionContext standard() {
+        return new ExecutionContext(batch(Output.standard()), Input.standard());
+    }
+
+    public static ExecutionContext of(InputStream in, OutputStream out) {
+        return new ExecutionContext(batch(new Output(Channels.newChannel(out), CAPACITY)),
+                new Input(Channels.newChannel(in), CAPACITY));
+    }
+
+    public static ExecutionContext of(Reader in, Writer out) {
+        return new ExecutionContext(batch(new Output(new WriterChannel(out), CAPACITY)),
+                new Input(new ReaderChannel(in), CAPACITY));
+    }
+
+    private static Output batch(Output output) {
+        output.batch();
+        return output;
+    }
+}
@@ -0,0 +1,56 @@
+package embed;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+// Encodes a Reader as the UTF-8 bytes an Input expects
+final class ReaderChannel implements ReadableByteChannel {
+    private final Reader reader;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars = CharBuffer.allocate(1024).flip();
+    private boolean ended;
+
+    ReaderChannel(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public int read(ByteBuffer target) throws IOException {
+        int start = target.position();
+        while (target.position() == start) {
+            CoderResult result = encoder.encode(chars, target, ended);
+            if (result.isOverflow()) {
+                break;
+            }
+            if (ended) {
+                return target.position() == start ? -1 : target.position() - start;
+            }
+            // A high surrogate may be left over; keep it for the next read
+            chars.compact();
+            if (reader.read(chars) < 0) {
+                ended = true;
+            }
+            chars.flip();
+        }
+        return target.position() - start;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,58 @@
+package embed;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+// Decodes the UTF-8 an Output writes into a Writer. A character split across two writes
+// is held back until the rest of it arrives.
+final class WriterChannel implements WritableByteChannel {
+    private final Writer writer;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(1024);
+    private final CharBuffer chars = CharBuffer.allocate(1024);
+
+    WriterChannel(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        int count = source.remaining();
+        while (source.hasRemaining()) {
+            int n = Math.min(source.remaining(), bytes.remaining());
+            ByteBuffer part = source.duplicate();
+            part.limit(part.position() + n);
+            bytes.put(part);
+            source.position(source.position() + n);
+
+            bytes.flip();
+            CoderResult result;
+            do {
+                result = decoder.decode(bytes, chars, false);
+                writer.write(chars.array(), 0, chars.position());
+                chars.clear();
+            } while (result.isOverflow());
+            bytes.compact();
+        }
+        writer.flush();
+        return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+    }
+}
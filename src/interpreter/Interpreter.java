@@ -0,0 +1,238 @@
+package interpreter;
+
+import ast.*;
+import runtime.Frame;
+import runtime.Input;
+import runtime.Kind;
+import runtime.Output;
+import vm.Compiler;
+import vm.VM;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+// Tree-walking executor for a resolved Program; the AST itself is never modified.
+// Variables live in a Frame indexed by the slots the Resolver assigned. Each expression is
+// compiled once into postfix VM code and then evaluated on that VM's primitive stacks,
+// so evaluating an expression allocates nothing. IPAKITA writes to a buffered Output.
+public class Interpreter implements StatementVisitor<Void> {
+    private Program program;
+    private Frame frame;
+    private final Output output;
+    private final Input input;
+    private final Map<Expression, VM> expressions = new IdentityHashMap<>();
+
+    public Interpreter() {
+        this(Output.standard(), Input.standard());
+    }
+
+    public Interpreter(Output output, Input input) {
+        this.output = output;
+        this.input = input;
+    }
+
+    public void execute(Program program) {
+        // Running the same program again reuses its variables and compiled expressions
+        if (program == this.program) {
+            frame.reset();
+        } else {
+            this.program = program;
+            frame = new Frame(program.slotTypes);
+            expressions.clear();
+        }
+        try {
+            executeAll(program.statements);
+        } finally {
+            output.endOfRun();
+        }
+    }
+
+    // Runs a program while it is still being parsed. `next` hands over one resolved top-level
+    // statement at a time with the frame layout so far (see Resolver.resolveNext), and null
+    // at the end. Variables carry over from one statement to the next; compiled expressions
+    // do not, since a top-level statement runs only once.
+    public void execute(Supplier<Program> next) {
+        program = null;
+        frame = null;
+        try {
+            for (Program statement = next.get(); statement != null; statement = next.get()) {
+                program = statement;
+                frame = frame == null ? new Frame(statement.slotTypes) : frame.extend(statement.slotTypes);
+                expressions.clear();
+                executeAll(statement.statements);
+            }
+        } finally {
+            program = null;
+            expressions.clear();
+            output.endOfRun();
+        }
+    }
+
+    private void executeAll(List<Statement> statements) {
+        for (Statement statement : statements) {
+            statement.accept(this);
+        }
+    }
+
+    @Override
+    public Void visitVariableDeclaration(VariableDeclaration statement) {
+        for (VariableDeclaration.Declarator declarator : statement.declarators) {
+            if (declarator.initializer != null) {
+                store(declarator.slot, statement.type, declarator.initializer);
+            } else {
+                clear(declarator.slot, statement.type);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitAssignment(Assignment statement) {
+        int[] slots = statement.slots;
+        Kind kind = Kind.of(statement.type);
+        store(slots[0], statement.type, statement.value);
+        for (int i = 1; i < slots.length; i++) {
+            switch (kind) {
+                case INTEGER:
+                    frame.integers[slots[i]] = frame.integers[slots[0]];
+                    break;
+                case NUMBER:
+                    frame.numbers[slots[i]] = frame.numbers[slots[0]];
+                    break;
+                case BOOLEAN:
+                    frame.booleans[slots[i]] = frame.booleans[slots[0]];
+                    break;
+                default:
+                    frame.strings[slots[i]] = frame.strings[slots[0]];
+                    break;
+            }
+        }
+        return null;
+    }
+
+    private void clear(int slot, Type varType) {
+        switch (Kind.of(varType)) {
+            case INTEGER:
+                frame.integers[slot] = 0;
+                break;
+            case NUMBER:
+                frame.numbers[slot] = 0;
+                break;
+            case BOOLEAN:
+                frame.booleans[slot] = false;
+                break;
+            default:
+                frame.strings[slot] = "";
+                break;
+        }
+    }
+
+    private void store(int slot, Type varType, Expression value) {
+        Kind kind = Kind.of(varType);
+        VM evaluator = evaluate(value, kind);
+        switch (kind) {
+            case INTEGER:
+                frame.integers[slot] = evaluator.integerResult();
+                break;
+            case NUMBER:
+                frame.numbers[slot] = evaluator.numberResult();
+                break;
+            case BOOLEAN:
+                frame.booleans[slot] = evaluator.booleanResult();
+                break;
+            default:
+                frame.strings[slot] = evaluator.stringResult();
+                break;
+        }
+    }
+
+    @Override
+    public Void visitPrintStatement(PrintStatement statement) {
+        for (PrintStatement.Segment segment : statement.segments) {
+            switch (segment.kind) {
+                case TEXT:
+                    output.print(segment.text);
+                    break;
+                case NEWLINE:
+                    output.newline();
+                    break;
+                case VARIABLE:
+                    printVariable((Variable) segment.expression);
+                    break;
+                case EXPRESSION:
+                    if (Kind.of(segment.expression) == Kind.INTEGER) {
+                        output.print(evaluate(segment.expression, Kind.INTEGER).integerResult());
+                    } else {
+                        output.printNumber(evaluate(segment.expression, Kind.NUMBER).numberResult());
+                    }
+                    break;
+            }
+        }
+
+        output.endLine();
+        return null;
+    }
+
+    private void printVariable(Variable variable) {
+        int slot = variable.slot;
+
+        switch (variable.type) {
+            case NUMERO:
+                output.print(frame.integers[slot]);
+                break;
+            case TIPIK:
+                output.print(frame.numbers[slot]);
+                break;
+            case TINUOD:
+                output.print(frame.booleans[slot]);
+                break;
+            default:
+                output.print(frame.strings[slot]);
+                break;
+        }
+    }
+
+    @Override
+    public Void visitInputStatement(InputStatement statement) {
+        output.prompt("Enter values: ");
+        input.read(frame, statement.slots, statement.fieldNames);
+        return null;
+    }
+
+    @Override
+    public Void visitIfStatement(IfStatement statement) {
+        for (IfStatement.Branch branch : statement.branches) {
+            if (evaluate(branch.condition, Kind.BOOLEAN).booleanResult()) {
+                executeAll(branch.body);
+                return null;
+            }
+        }
+        if (statement.otherwise != null) {
+            executeAll(statement.otherwise);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitSwitchStatement(SwitchStatement statement) {
+        int index = Arrays.binarySearch(statement.keys, frame.integers[statement.selector.slot]);
+        if (index >= 0) {
+            executeAll(statement.bodies.get(statement.arms[index]));
+        } else if (statement.otherwise != null) {
+            executeAll(statement.otherwise);
+        }
+        return null;
+    }
+
+    // Runs the expression's postfix code, compiling it on first use. An expression node is
+    // always evaluated in the same context, so it is only ever compiled for one kind.
+    private VM evaluate(Expression expression, Kind kind) {
+        VM evaluator = expressions.get(expression);
+        if (evaluator == null) {
+            evaluator = new VM(new Compiler().compileExpression(expression, kind, program), frame);
+            expressions.put(expression, evaluator);
+        }
+        evaluator.run();
+        return evaluator;
+    }
+}
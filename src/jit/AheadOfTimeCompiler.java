@@ -0,0 +1,104 @@
+package jit;
+
+import vm.Chunk;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.jar.*;
+
+// Turns a compiled program into a standalone class with a main method, optionally packaged
+// as a runnable jar together with the runtime classes the generated code links against.
+public final class AheadOfTimeCompiler {
+    private static final String[] RUNTIME_ROOTS = {"jit/JitRuntime", "jit/CompiledCode"};
+
+    private AheadOfTimeCompiler() {
+    }
+
+    public static byte[] compileClass(Chunk chunk, String className) {
+        return BytecodeTranslator.translate(chunk, className, true);
+    }
+
+    public static void writeClass(Chunk chunk, String className, Path output) throws IOException {
+        Files.write(output, compileClass(chunk, className));
+    }
+
+    // Everything is compiled before the jar is opened, so a program that cannot be compiled
+    // leaves no jar behind
+    public static void writeJar(Chunk chunk, String className, Path output) throws IOException {
+        byte[] program = compileClass(chunk, className);
+        Map<String, byte[]> runtime = runtimeClasses();
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, className.replace('/', '.'));
+
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(output), manifest)) {
+            addEntry(jar, className + ".class", program);
+            for (Map.Entry<String, byte[]> support : runtime.entrySet()) {
+                addEntry(jar, support.getKey() + ".class", support.getValue());
+            }
+        }
+    }
+
+    private static void addEntry(JarOutputStream jar, String name, byte[] bytes) throws IOException {
+        jar.putNextEntry(new JarEntry(name));
+        jar.write(bytes);
+        jar.closeEntry();
+    }
+
+    // Every class reachable from the runtime roots that comes from our own class path
+    private static Map<String, byte[]> runtimeClasses() throws IOException {
+        Map<String, byte[]> classes = new TreeMap<>();
+        Deque<String> pending = new ArrayDeque<>(Arrays.asList(RUNTIME_ROOTS));
+        ClassLoader loader = AheadOfTimeCompiler.class.getClassLoader();
+
+        while (!pending.isEmpty()) {
+            String name = pending.pop();
+            if (classes.containsKey(name)) continue;
+
+            byte[] bytes;
+            try (InputStream in = loader.getResourceAsStream(name + ".class")) {
+                if (in == null || name.startsWith("java/")) continue; // part of the JDK
+                bytes = in.readAllBytes();
+            }
+            classes.put(name, bytes);
+            pending.addAll(referencedClasses(bytes));
+        }
+        return classes;
+    }
+
+    // Reads the CONSTANT_Class entries of a class file's constant pool
+    private static List<String> referencedClasses(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipBytes(8); // magic and version
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        List<Integer> classNames = new ArrayList<>();
+
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: utf8[i] = in.readUTF(); break;
+                case 7: classNames.add(in.readUnsignedShort()); break;
+                case 8: case 16: case 19: case 20: in.skipBytes(2); break;
+                case 15: in.skipBytes(3); break;
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18: in.skipBytes(4); break;
+                case 5: case 6: in.skipBytes(8); i++; break;
+                default: throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        List<String> result = new ArrayList<>();
+        for (int index : classNames) {
+            String name = utf8[index];
+            if (name.startsWith("[")) {
+                int start = name.indexOf('L');
+                if (start < 0) continue;
+                name = name.substring(start + 1, name.length() - 1);
+            }
+            result.add(name);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,568 @@
+package jit;
+
+import ast.Type;
+import vm.Chunk;
+import vm.OpCode;
+
+import java.util.*;
+
+// Translates VM bytecode into a JVM class implementing CompiledCode. Every VM instruction is
+// already typed, so the translation is a single forward pass: variable slots become JVM locals,
+// NUMERO values are longs, TIPIK values unboxed doubles and TINUOD values JVM ints.
+final class BytecodeTranslator {
+    private static final String RUNTIME = "jit/JitRuntime";
+    private static final String VALUES = "runtime/Values";
+    private static final String STRING = "Ljava/lang/String;";
+    private static final String RUNTIME_ARG = "L" + RUNTIME + ";";
+
+    private final Chunk chunk;
+    private final String className;
+    private final ClassFileWriter classFile;
+    private final ClassFileWriter.MethodWriter method;
+    private final int[] locals;
+    private final char[] slotKinds;
+
+    private StringBuilder stack = new StringBuilder(); // 'J' NUMERO, 'D' TIPIK, 'Z' TINUOD, 'S' LETRA
+
+    private BytecodeTranslator(Chunk chunk, String className) {
+        this.chunk = chunk;
+        this.className = className;
+        this.classFile = new ClassFileWriter(className, "java/lang/Object", "jit/CompiledCode");
+        this.method = classFile.method(ClassFileWriter.ACC_PUBLIC, "run", "(" + RUNTIME_ARG + ")V");
+        this.slotKinds = new char[chunk.slotTypes.length];
+        this.locals = new int[chunk.slotTypes.length];
+
+        int next = 2; // 0 is this, 1 is the JitRuntime
+        for (int slot = 0; slot < slotKinds.length; slot++) {
+            slotKinds[slot] = kindOf(chunk.slotTypes[slot]);
+            locals[slot] = next;
+            next += isWide(slotKinds[slot]) ? 2 : 1;
+        }
+        method.setMaxs(chunk.maxStack * 2 + 4, next);
+    }
+
+    static byte[] translate(Chunk chunk, String className) {
+        return translate(chunk, className, false);
+    }
+
+    // With a main method the class is a standalone program that needs no front end at all
+    static byte[] translate(Chunk chunk, String className, boolean withMain) {
+        BytecodeTranslator translator = new BytecodeTranslator(chunk, className);
+        translator.emitConstructor();
+        translator.emitRun();
+        if (withMain) {
+            translator.emitMain();
+        }
+        return translator.classFile.toByteArray();
+    }
+
+    private void emitMain() {
+        ClassFileWriter.MethodWriter main = classFile.method(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_STATIC,
+                "main", "([" + STRING + ")V");
+
+        // JitRuntime runtime = new JitRuntime(slotNames);
+        main.op(Opcodes.NEW, classFile.classRef(RUNTIME));
+        main.op(Opcodes.DUP);
+        stringArray(main, chunk.slotNames);
+        main.op(Opcodes.INVOKESPECIAL, classFile.methodRef(RUNTIME, "<init>", "([" + STRING + ")V"));
+        main.op(Opcodes.ASTORE_1);
+
+        // JitRuntime.execute(new <this class>(), runtime);
+        main.op(Opcodes.NEW, classFile.classRef(className));
+        main.op(Opcodes.DUP);
+        main.op(Opcodes.INVOKESPECIAL, classFile.methodRef(className, "<init>", "()V"));
+        main.op(Opcodes.ALOAD_1);
+        main.op(Opcodes.INVOKESTATIC, classFile.methodRef(RUNTIME, "execute", "(Ljit/CompiledCode;" + RUNTIME_ARG + ")V"));
+        main.op(Opcodes.RETURN);
+        main.setMaxs(8, 2);
+    }
+
+    private void stringArray(ClassFileWriter.MethodWriter target, String[] values) {
+        target.pushInt(values.length);
+        target.op(Opcodes.ANEWARRAY, classFile.classRef("java/lang/String"));
+        for (int i = 0; i < values.length; i++) {
+            target.op(Opcodes.DUP);
+            target.pushInt(i);
+            target.ldc(classFile.string(values[i]));
+            target.op(Opcodes.AASTORE);
+        }
+    }
+
+    private void emitConstructor() {
+        ClassFileWriter.MethodWriter init = classFile.method(ClassFileWriter.ACC_PUBLIC, "<init>", "()V");
+        init.op(Opcodes.ALOAD_0);
+        init.op(Opcodes.INVOKESPECIAL, classFile.methodRef("java/lang/Object", "<init>", "()V"));
+        init.op(Opcodes.RETURN);
+        init.setMaxs(1, 1);
+    }
+
+    private void emitRun() {
+        // Locals must be definitely assigned for the verifier; give every slot its default value
+        for (int slot = 0; slot < slotKinds.length; slot++) {
+            switch (slotKinds[slot]) {
+                case 'J':
+                    method.op(Opcodes.LCONST_0);
+                    break;
+                case 'D':
+                    method.op(Opcodes.DCONST_0);
+                    break;
+                case 'Z':
+                    method.op(Opcodes.ICONST_0);
+                    break;
+                default:
+                    method.ldc(classFile.string(""));
+                    break;
+            }
+            store(slot);
+        }
+
+        int[] code = chunk.code;
+        int[] offsets = new int[code.length];
+        List<int[]> fixups = new ArrayList<>();
+        List<int[]> switchFixups = new ArrayList<>();
+        Map<Integer, String> stackAtTarget = new HashMap<>();
+        boolean reachable = true;
+
+        int pc = 0;
+        while (pc < code.length) {
+            if (!reachable && stackAtTarget.containsKey(pc)) {
+                stack = new StringBuilder(stackAtTarget.get(pc));
+            }
+            reachable = true;
+            offsets[pc] = method.position();
+
+            int op = code[pc++];
+            switch (op) {
+                case OpCode.HALT:
+                    method.op(Opcodes.RETURN);
+                    reachable = false;
+                    break;
+                case OpCode.LCONST:
+                    method.op(Opcodes.LDC2_W, classFile.longConstant((Long) chunk.constants[code[pc++]]));
+                    push('J');
+                    break;
+                case OpCode.NCONST:
+                    method.op(Opcodes.LDC2_W, classFile.doubleConstant((Double) chunk.constants[code[pc++]]));
+                    push('D');
+                    break;
+                case OpCode.SCONST:
+                    method.ldc(classFile.string((String) chunk.constants[code[pc++]]));
+                    push('S');
+                    break;
+                case OpCode.TRUE:
+                case OpCode.FALSE:
+                    method.op(op == OpCode.TRUE ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
+                    push('Z');
+                    break;
+                case OpCode.LLOAD:
+                case OpCode.NLOAD:
+                case OpCode.BLOAD:
+                case OpCode.SLOAD:
+                    load(code[pc++]);
+                    break;
+                case OpCode.LSTORE:
+                case OpCode.NSTORE:
+                case OpCode.BSTORE:
+                case OpCode.SSTORE:
+                    store(code[pc++]);
+                    pop();
+                    break;
+                case OpCode.LDUP:
+                case OpCode.NDUP:
+                case OpCode.BDUP:
+                case OpCode.SDUP:
+                    method.op(isWide(peek()) ? Opcodes.DUP2 : Opcodes.DUP);
+                    push(peek());
+                    break;
+
+                // NUMERO arithmetic goes through the overflow checked helpers in Values
+                case OpCode.LADD:
+                    integerArithmetic("add");
+                    break;
+                case OpCode.LSUB:
+                    integerArithmetic("subtract");
+                    break;
+                case OpCode.LMUL:
+                    integerArithmetic("multiply");
+                    break;
+                case OpCode.LDIV:
+                    integerArithmetic("divide");
+                    break;
+                case OpCode.LMOD:
+                    integerArithmetic("remainder");
+                    break;
+                case OpCode.LNEG:
+                    method.op(Opcodes.INVOKESTATIC, classFile.methodRef(VALUES, "negate", "(J)J"));
+                    break;
+
+                case OpCode.NADD:
+                    arithmetic(Opcodes.DADD);
+                    break;
+                case OpCode.NSUB:
+                    arithmetic(Opcodes.DSUB);
+                    break;
+                case OpCode.NMUL:
+                    arithmetic(Opcodes.DMUL);
+                    break;
+                case OpCode.NDIV:
+                    method.op(Opcodes.INVOKESTATIC, classFile.methodRef(VALUES, "divide", "(DD)D"));
+                    pop();
+                    break;
+                case OpCode.NMOD:
+                    method.op(Opcodes.INVOKESTATIC, classFile.methodRef(VALUES, "remainder", "(DD)D"));
+                    pop();
+                    break;
+                case OpCode.NNEG:
+                    method.op(Opcodes.DNEG);
+                    break;
+
+                case OpCode.LLT:
+                    compareIntegers(Opcodes.IFLT);
+                    break;
+                case OpCode.LGT:
+                    compareIntegers(Opcodes.IFGT);
+                    break;
+                case OpCode.LLE:
+                    compareIntegers(Opcodes.IFLE);
+                    break;
+                case OpCode.LGE:
+                    compareIntegers(Opcodes.IFGE);
+                    break;
+                case OpCode.LEQ:
+                    compareIntegers(Opcodes.IFEQ);
+                    break;
+                case OpCode.LNE:
+                    compareIntegers(Opcodes.IFNE);
+                    break;
+
+                // dcmpg for < and <=, dcmpl for > and >=, so that NaN compares false
+                case OpCode.NLT:
+                    compareNumbers(Opcodes.DCMPG, Opcodes.IFLT);
+                    break;
+                case OpCode.NGT:
+                    compareNumbers(Opcodes.DCMPL, Opcodes.IFGT);
+                    break;
+                case OpCode.NLE:
+                    compareNumbers(Opcodes.DCMPG, Opcodes.IFLE);
+                    break;
+                case OpCode.NGE:
+                    compareNumbers(Opcodes.DCMPL, Opcodes.IFGE);
+                    break;
+                case OpCode.NEQ:
+                    compareNumbers(Opcodes.DCMPL, Opcodes.IFEQ);
+                    break;
+                case OpCode.NNE:
+                    compareNumbers(Opcodes.DCMPL, Opcodes.IFNE);
+                    break;
+                case OpCode.BEQ:
+                case OpCode.BNE:
+                    pop();
+                    pop();
+                    condition(op == OpCode.BEQ ? Opcodes.IF_ICMPEQ : Opcodes.IF_ICMPNE);
+                    break;
+                case OpCode.CMP: {
+                    char right = pop();
+                    char left = pop();
+                    method.pushInt(code[pc]);
+                    method.op(Opcodes.INVOKESTATIC, classFile.methodRef(RUNTIME, "compare",
+                            "(" + descriptor(left) + descriptor(right) + "I)Z"));
+                    push('Z');
+                    pc += 3; // the operand kinds are already tracked on the type stack
+                    break;
+                }
+                case OpCode.NOT:
+                    method.op(Opcodes.ICONST_1);
+                    method.op(Opcodes.IXOR);
+                    break;
+
+                case OpCode.L2N:
+                    method.op(Opcodes.L2D);
+                    pop();
+                    push('D');
+                    break;
+                case OpCode.N2L:
+                    method.op(Opcodes.INVOKESTATIC, classFile.methodRef(VALUES, "toInteger", "(D)J"));
+                    pop();
+                    push('J');
+                    break;
+                case OpCode.B2L:
+                    method.op(Opcodes.I2L);
+                    pop();
+                    push('J');
+                    break;
+                case OpCode.S2L:
+                    method.op(Opcodes.INVOKESTATIC, classFile.methodRef(VALUES, "toInteger", "(" + STRING + ")J"));
+                    pop();
+                    push('J');
+                    break;
+                case OpCode.L2B:
+                    pop();
+                    method.op(Opcodes.LCONST_0);
+                    method.op(Opcodes.LCMP);
+                    condition(Opcodes.IFNE);
+                    break;
+                case OpCode.B2N:
+                    method.op(Opcodes.I2D);
+                    pop();
+                    push('D');
+                    break;
+                case OpCode.S2N:
+                    method.op(Opcodes.INVOKESTATIC, classFile.methodRef(VALUES, "toNumber", "(" + STRING + ")D"));
+                    pop();
+                    push('D');
+                    break;
+                case OpCode.N2B:
+                    pop();
+                    method.op(Opcodes.DCONST_0);
+                    method.op(Opcodes.DCMPL);
+                    condition(Opcodes.IFNE);
+                    break;
+                case OpCode.S2B:
+                    method.op(Opcodes.INVOKESTATIC, classFile.methodRef(VALUES, "toBoolean", "(" + STRING + ")Z"));
+                    pop();
+                    push('Z');
+                    break;
+
+                case OpCode.JUMP:
+                    fixups.add(new int[]{method.branch(Opcodes.GOTO), code[pc]});
+                    stackAtTarget.putIfAbsent(code[pc++], stack.toString());
+                    reachable = false;
+                    break;
+                case OpCode.JUMP_IF_FALSE:
+                    pop();
+                    fixups.add(new int[]{method.branch(Opcodes.IFEQ), code[pc]});
+                    stackAtTarget.putIfAbsent(code[pc++], stack.toString());
+                    break;
+
+                case OpCode.LSWITCH: {
+                    pop();
+                    long[] keys = (long[]) chunk.constants[code[pc]];
+                    int defaultTarget = code[pc + 1];
+                    int[] targets = Arrays.copyOfRange(code, pc + 2, pc + 2 + keys.length);
+                    for (int target : targets) {
+                        stackAtTarget.putIfAbsent(target, stack.toString());
+                    }
+                    stackAtTarget.putIfAbsent(defaultTarget, stack.toString());
+
+                    if (fitsLookupSwitch(keys)) {
+                        int[] intKeys = new int[keys.length];
+                        for (int i = 0; i < keys.length; i++) {
+                            intKeys[i] = (int) keys[i];
+                        }
+                        method.op(Opcodes.INVOKESTATIC, classFile.methodRef(RUNTIME, "switchKey", "(J)I"));
+                        int at = method.lookupSwitch(intKeys);
+                        switchFixups.add(new int[]{at, -1, defaultTarget});
+                        for (int i = 0; i < keys.length; i++) {
+                            switchFixups.add(new int[]{at, i, targets[i]});
+                        }
+                    } else {
+                        // Keys beyond int range: compare against each key in turn
+                        for (int i = 0; i < keys.length; i++) {
+                            method.op(Opcodes.DUP2);
+                            method.op(Opcodes.LDC2_W, classFile.longConstant(keys[i]));
+                            method.op(Opcodes.LCMP);
+                            method.op(Opcodes.IFNE, 7);
+                            method.op(Opcodes.POP2);
+                            fixups.add(new int[]{method.branch(Opcodes.GOTO), targets[i]});
+                        }
+                        method.op(Opcodes.POP2);
+                        fixups.add(new int[]{method.branch(Opcodes.GOTO), defaultTarget});
+                    }
+                    pc += 2 + keys.length;
+                    reachable = false;
+                    break;
+                }
+
+                case OpCode.EMIT_TEXT:
+                    method.ldc(classFile.string((String) chunk.constants[code[pc++]]));
+                    callRuntime("emitText", "(" + STRING + RUNTIME_ARG + ")V");
+                    break;
+                case OpCode.EMIT_NUMERO:
+                    pop();
+                    callRuntime("emitNumero", "(J" + RUNTIME_ARG + ")V");
+                    break;
+                case OpCode.EMIT_TIPIK:
+                    pop();
+                    callRuntime("emitTipik", "(D" + RUNTIME_ARG + ")V");
+                    break;
+                case OpCode.EMIT_NUMBER:
+                    pop();
+                    callRuntime("emitNumber", "(D" + RUNTIME_ARG + ")V");
+                    break;
+                case OpCode.EMIT_TINUOD:
+                    pop();
+                    callRuntime("emitTinuod", "(Z" + RUNTIME_ARG + ")V");
+                    break;
+                case OpCode.EMIT_LETRA:
+                    pop();
+                    callRuntime("emitLetra", "(" + STRING + RUNTIME_ARG + ")V");
+                    break;
+                case OpCode.EMIT_LINE:
+                    callRuntime("emitLine", "(" + RUNTIME_ARG + ")V");
+                    break;
+                case OpCode.EMIT_END:
+                    callRuntime("emitEnd", "(" + RUNTIME_ARG + ")V");
+                    break;
+
+                case OpCode.INPUT: {
+                    int[] slots = (int[]) chunk.constants[code[pc]];
+                    int count = slots.length;
+                    method.pushInt(count);
+                    callRuntime("beginInput", "(I" + RUNTIME_ARG + ")V");
+                    for (int i = 0; i < count; i++) {
+                        int slot = slots[i];
+                        method.pushInt(i);
+                        method.pushInt(slot);
+                        switch (slotKinds[slot]) {
+                            case 'J':
+                                callRuntime("inputInteger", "(II" + RUNTIME_ARG + ")J");
+                                break;
+                            case 'D':
+                                callRuntime("inputNumber", "(II" + RUNTIME_ARG + ")D");
+                                break;
+                            case 'Z':
+                                callRuntime("inputBoolean", "(II" + RUNTIME_ARG + ")Z");
+                                break;
+                            default:
+                                callRuntime("inputString", "(II" + RUNTIME_ARG + ")" + STRING);
+                                break;
+                        }
+                        store(slot);
+                    }
+                    pc += 2;
+                    break;
+                }
+
+                default:
+                    throw new IllegalStateException("Unknown opcode " + op + " at " + (pc - 1));
+            }
+        }
+
+        for (int[] fixup : fixups) {
+            method.patch(fixup[0], offsets[fixup[1]]);
+        }
+        for (int[] fixup : switchFixups) {
+            method.patchSwitch(fixup[0], fixup[1], offsets[fixup[2]]);
+        }
+        if (method.position() > 65535) {
+            throw new IllegalStateException("Program too large for a single JVM method");
+        }
+    }
+
+    private void arithmetic(int opcode) {
+        method.op(opcode);
+        pop();
+    }
+
+    // switchKey() maps out of range selectors to Integer.MIN_VALUE, so that may not be a key
+    private static boolean fitsLookupSwitch(long[] keys) {
+        for (long key : keys) {
+            if (key != (int) key || key == Integer.MIN_VALUE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void integerArithmetic(String helper) {
+        method.op(Opcodes.INVOKESTATIC, classFile.methodRef(VALUES, helper, "(JJ)J"));
+        pop();
+    }
+
+    private void compareIntegers(int branchOpcode) {
+        pop();
+        pop();
+        method.op(Opcodes.LCMP);
+        condition(branchOpcode);
+    }
+
+    private void compareNumbers(int compareOpcode, int branchOpcode) {
+        pop();
+        pop();
+        method.op(compareOpcode);
+        condition(branchOpcode);
+    }
+
+    // Turns a conditional branch into a 0/1 int on the stack
+    private void condition(int branchOpcode) {
+        method.op(branchOpcode, 7);
+        method.op(Opcodes.ICONST_0);
+        method.op(Opcodes.GOTO, 4);
+        method.op(Opcodes.ICONST_1);
+        push('Z');
+    }
+
+    private void callRuntime(String name, String descriptor) {
+        method.op(Opcodes.ALOAD_1);
+        method.op(Opcodes.INVOKESTATIC, classFile.methodRef(RUNTIME, name, descriptor));
+    }
+
+    private void load(int slot) {
+        switch (slotKinds[slot]) {
+            case 'J':
+                method.local(Opcodes.LLOAD, locals[slot]);
+                break;
+            case 'D':
+                method.local(Opcodes.DLOAD, locals[slot]);
+                break;
+            case 'Z':
+                method.local(Opcodes.ILOAD, locals[slot]);
+                break;
+            default:
+                method.local(Opcodes.ALOAD, locals[slot]);
+                break;
+        }
+        push(slotKinds[slot]);
+    }
+
+    private void store(int slot) {
+        switch (slotKinds[slot]) {
+            case 'J':
+                method.local(Opcodes.LSTORE, locals[slot]);
+                break;
+            case 'D':
+                method.local(Opcodes.DSTORE, locals[slot]);
+                break;
+            case 'Z':
+                method.local(Opcodes.ISTORE, locals[slot]);
+                break;
+            default:
+                method.local(Opcodes.ASTORE, locals[slot]);
+                break;
+        }
+    }
+
+    private void push(char kind) {
+        stack.append(kind);
+    }
+
+    private char pop() {
+        char kind = stack.charAt(stack.length() - 1);
+        stack.setLength(stack.length() - 1);
+        return kind;
+    }
+
+    private char peek() {
+        return stack.charAt(stack.length() - 1);
+    }
+
+    private static String descriptor(char kind) {
+        switch (kind) {
+            case 'J': return "J";
+            case 'D': return "D";
+            case 'Z': return "Z";
+            default: return STRING;
+        }
+    }
+
+    private static boolean isWide(char kind) {
+        return kind == 'J' || kind == 'D';
+    }
+
+    private static char kindOf(Type varType) {
+        if (varType == Type.NUMERO) return 'J';
+        if (varType == Type.TIPIK) return 'D';
+        if (varType == Type.TINUOD) return 'Z';
+        return 'S';
+    }
+}
@@ -0,0 +1,318 @@
+package jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+// Minimal class file emitter. Classes are written as version 49 (Java 5) so that methods
+// with branches need no StackMapTable; the JVM verifies them by type inference.
+final class ClassFileWriter {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int MAJOR_VERSION = 49;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+    private final List<MethodWriter> methods = new ArrayList<>();
+
+    ClassFileWriter(String className, String superName, String... interfaceNames) {
+        this.thisClass = classRef(className);
+        this.superClass = classRef(superName);
+        this.interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaces[i] = classRef(interfaceNames[i]);
+        }
+    }
+
+    MethodWriter method(int access, String name, String descriptor) {
+        MethodWriter method = new MethodWriter(this, access, utf8(name), utf8(descriptor));
+        methods.add(method);
+        return method;
+    }
+
+    byte[] toByteArray() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            int codeAttribute = utf8("Code");
+
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(poolCount);
+            pool.flush();
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int index : interfaces) {
+                out.writeShort(index);
+            }
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (MethodWriter method : methods) {
+                method.writeTo(out, codeAttribute);
+            }
+            out.writeShort(0); // class attributes
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    int utf8(String value) {
+        return entry("U" + value, out -> {
+            out.writeByte(1);
+            out.writeUTF(value);
+        }, 1);
+    }
+
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return entry("C" + internalName, out -> {
+            out.writeByte(7);
+            out.writeShort(name);
+        }, 1);
+    }
+
+    int string(String value) {
+        int text = utf8(value);
+        return entry("S" + value, out -> {
+            out.writeByte(8);
+            out.writeShort(text);
+        }, 1);
+    }
+
+    int integer(int value) {
+        return entry("I" + value, out -> {
+            out.writeByte(3);
+            out.writeInt(value);
+        }, 1);
+    }
+
+    int longConstant(long value) {
+        return entry("J" + value, out -> {
+            out.writeByte(5);
+            out.writeLong(value);
+        }, 2);
+    }
+
+    int doubleConstant(double value) {
+        return entry("D" + Double.doubleToRawLongBits(value), out -> {
+            out.writeByte(6);
+            out.writeDouble(value);
+        }, 2);
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    int interfaceMethodRef(String owner, String name, String descriptor) {
+        return memberRef(11, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = entry("N" + name + ":" + descriptor, out -> {
+            out.writeByte(12);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        }, 1);
+        return entry(tag + owner + "." + name + ":" + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        }, 1);
+    }
+
+    private interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private int entry(String key, EntryWriter writer, int width) {
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            writer.write(pool);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        index = poolCount;
+        poolCount += width; // long and double entries take two pool slots
+        poolIndex.put(key, index);
+        return index;
+    }
+
+    static final class MethodWriter {
+        private final ClassFileWriter owner;
+        private final int access;
+        private final int name;
+        private final int descriptor;
+        private byte[] code = new byte[256];
+        private int length;
+        private int maxStack;
+        private int maxLocals;
+
+        private MethodWriter(ClassFileWriter owner, int access, int name, int descriptor) {
+            this.owner = owner;
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+
+        ClassFileWriter owner() {
+            return owner;
+        }
+
+        int position() {
+            return length;
+        }
+
+        void setMaxs(int maxStack, int maxLocals) {
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+        }
+
+        void op(int opcode) {
+            u1(opcode);
+        }
+
+        void op(int opcode, int u2Operand) {
+            u1(opcode);
+            u2(u2Operand);
+        }
+
+        // xload / xstore with the wide prefix when the local does not fit in a byte
+        void local(int opcode, int index) {
+            if (index > 255) {
+                u1(Opcodes.WIDE);
+                u1(opcode);
+                u2(index);
+            } else {
+                u1(opcode);
+                u1(index);
+            }
+        }
+
+        void ldc(int poolIndex) {
+            if (poolIndex > 255) {
+                op(Opcodes.LDC_W, poolIndex);
+            } else {
+                u1(Opcodes.LDC);
+                u1(poolIndex);
+            }
+        }
+
+        void pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                u1(Opcodes.ICONST_0 + value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                op(Opcodes.SIPUSH, value);
+            } else {
+                ldc(owner.integer(value));
+            }
+        }
+
+        void invokeInterface(int methodRef, int argumentSlots) {
+            u1(Opcodes.INVOKEINTERFACE);
+            u2(methodRef);
+            u1(argumentSlots + 1);
+            u1(0);
+        }
+
+        // Emits a branch with a placeholder offset and returns its position for patch()
+        int branch(int opcode) {
+            int at = length;
+            op(opcode, 0);
+            return at;
+        }
+
+        // lookupswitch over sorted int keys; the default and every key get patchSwitch()ed later
+        int lookupSwitch(int[] keys) {
+            int at = length;
+            u1(Opcodes.LOOKUPSWITCH);
+            while (length % 4 != 0) {
+                u1(0);
+            }
+            u4(0);
+            u4(keys.length);
+            for (int key : keys) {
+                u4(key);
+                u4(0);
+            }
+            return at;
+        }
+
+        // entry -1 is the default target, otherwise the index of the key
+        void patchSwitch(int switchAt, int entry, int target) {
+            int table = (switchAt + 4) & ~3;
+            int at = entry < 0 ? table : table + 12 + entry * 8;
+            int offset = target - switchAt;
+            code[at] = (byte) (offset >> 24);
+            code[at + 1] = (byte) (offset >> 16);
+            code[at + 2] = (byte) (offset >> 8);
+            code[at + 3] = (byte) offset;
+        }
+
+        void patch(int branchAt, int target) {
+            int offset = target - branchAt;
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                throw new IllegalStateException("Branch offset out of range");
+            }
+            code[branchAt + 1] = (byte) (offset >> 8);
+            code[branchAt + 2] = (byte) offset;
+        }
+
+        private void u1(int value) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length++] = (byte) value;
+        }
+
+        private void u2(int value) {
+            u1(value >> 8);
+            u1(value);
+        }
+
+        private void u4(int value) {
+            u2(value >> 16);
+            u2(value);
+        }
+
+        private void writeTo(DataOutputStream out, int codeAttribute) throws IOException {
+            out.writeShort(access);
+            out.writeShort(name);
+            out.writeShort(descriptor);
+            out.writeShort(1);
+            out.writeShort(codeAttribute);
+            out.writeInt(12 + length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(length);
+            out.write(code, 0, length);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // code attributes
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package jit;
+
+// Implemented by the classes the JIT generates; one instance is shared by every run
+public interface CompiledCode {
+    void run(JitRuntime runtime);
+}
@@ -0,0 +1,25 @@
+package jit;
+
+import vm.Chunk;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+public final class JitCompiler {
+    private JitCompiler() {
+    }
+
+    // Translates the chunk and loads it as a hidden class, which is unloaded again once
+    // the returned CompiledCode is no longer referenced
+    public static CompiledCode compile(Chunk chunk) {
+        byte[] bytes = BytecodeTranslator.translate(chunk, "jit/CompiledScript");
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (CompiledCode) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not load compiled program", e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package jit;
+
+import ast.Operator;
+import runtime.Input;
+import runtime.Output;
+import runtime.Values;
+
+// Per-run state and the out-of-line helpers that compiled code calls into. The helpers are
+// small static methods so HotSpot inlines them into the generated code. Output goes through
+// a runtime.Output, flushed before each DAWAT prompt and when the run ends.
+public final class JitRuntime {
+    private static final Operator[] OPERATORS = Operator.values();
+
+    private final String[] slotNames;
+    private final Output out;
+    private final Input in;
+
+    public JitRuntime(String[] slotNames) {
+        this(slotNames, Output.standard(), Input.standard());
+    }
+
+    // The slot names are for DAWAT error messages; the generated code picks each conversion
+    public JitRuntime(String[] slotNames, Output out, Input in) {
+        this.slotNames = slotNames;
+        this.out = out;
+        this.in = in;
+    }
+
+    // Runs compiled code and flushes its output even when the program fails
+    public static void execute(CompiledCode code, JitRuntime runtime) {
+        try {
+            code.run(runtime);
+        } finally {
+            runtime.out.endOfRun();
+        }
+    }
+
+    public static void emitText(String text, JitRuntime runtime) {
+        runtime.out.print(text);
+    }
+
+    public static void emitNumero(long value, JitRuntime runtime) {
+        runtime.out.print(value);
+    }
+
+    public static void emitTipik(double value, JitRuntime runtime) {
+        runtime.out.print(value);
+    }
+
+    public static void emitNumber(double value, JitRuntime runtime) {
+        runtime.out.printNumber(value);
+    }
+
+    public static void emitTinuod(boolean value, JitRuntime runtime) {
+        runtime.out.print(value);
+    }
+
+    public static void emitLetra(String value, JitRuntime runtime) {
+        runtime.out.print(value);
+    }
+
+    public static void emitLine(JitRuntime runtime) {
+        runtime.out.newline();
+    }
+
+    public static void emitEnd(JitRuntime runtime) {
+        runtime.out.endLine();
+    }
+
+    // Reads one DAWAT line; its fields are then parsed one by one into their slots
+    public static void beginInput(int count, JitRuntime runtime) {
+        runtime.out.prompt("Enter values: ");
+        runtime.in.readLine(count);
+    }
+
+    public static long inputInteger(int index, int slot, JitRuntime runtime) {
+        return runtime.in.integerField(index, runtime.slotNames[slot]);
+    }
+
+    public static double inputNumber(int index, int slot, JitRuntime runtime) {
+        return runtime.in.numberField(index, runtime.slotNames[slot]);
+    }
+
+    public static boolean inputBoolean(int index, int slot, JitRuntime runtime) {
+        return runtime.in.booleanField(index);
+    }
+
+    public static String inputString(int index, int slot, JitRuntime runtime) {
+        return runtime.in.stringField(index);
+    }
+
+    // Narrows a KUNG table selector for lookupswitch; values outside int range can never match
+    public static int switchKey(long value) {
+        return value == (int) value ? (int) value : Integer.MIN_VALUE;
+    }
+
+    public static boolean compare(long a, String b, int op) {
+        return Values.compareMixed(OPERATORS[op], a, b);
+    }
+
+    public static boolean compare(String a, long b, int op) {
+        return Values.compareMixed(OPERATORS[op], a, b);
+    }
+
+    public static boolean compare(double a, String b, int op) {
+        return Values.compareMixed(OPERATORS[op], a, b);
+    }
+
+    public static boolean compare(String a, double b, int op) {
+        return Values.compareMixed(OPERATORS[op], a, b);
+    }
+
+    public static boolean compare(boolean a, String b, int op) {
+        return Values.compareMixed(OPERATORS[op], a, b);
+    }
+
+    public static boolean compare(String a, boolean b, int op) {
+        return Values.compareMixed(OPERATORS[op], a, b);
+    }
+
+    public static boolean compare(String a, String b, int op) {
+        return Values.compareMixed(OPERATORS[op], a, b);
+    }
+}
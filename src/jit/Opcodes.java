@@ -0,0 +1,63 @@
+package jit;
+
+// JVM instruction opcodes used by the code generator
+final class Opcodes {
+    private Opcodes() {
+    }
+
+    static final int ACONST_NULL = 0x01;
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int LCONST_0 = 0x09;
+    static final int DCONST_0 = 0x0e;
+    static final int SIPUSH = 0x11;
+    static final int LDC = 0x12;
+    static final int LDC_W = 0x13;
+    static final int LDC2_W = 0x14;
+    static final int ILOAD = 0x15;
+    static final int LLOAD = 0x16;
+    static final int DLOAD = 0x18;
+    static final int ALOAD = 0x19;
+    static final int ALOAD_0 = 0x2a;
+    static final int ALOAD_1 = 0x2b;
+    static final int ISTORE = 0x36;
+    static final int LSTORE = 0x37;
+    static final int DSTORE = 0x39;
+    static final int ASTORE = 0x3a;
+    static final int ASTORE_1 = 0x4c;
+    static final int AASTORE = 0x53;
+    static final int POP = 0x57;
+    static final int POP2 = 0x58;
+    static final int DUP = 0x59;
+    static final int DUP2 = 0x5c;
+    static final int DADD = 0x63;
+    static final int DSUB = 0x67;
+    static final int DMUL = 0x6b;
+    static final int DNEG = 0x77;
+    static final int IXOR = 0x82;
+    static final int I2L = 0x85;
+    static final int I2D = 0x87;
+    static final int L2D = 0x8a;
+    static final int LCMP = 0x94;
+    static final int DCMPL = 0x97;
+    static final int DCMPG = 0x98;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IFLT = 0x9b;
+    static final int IFGE = 0x9c;
+    static final int IFGT = 0x9d;
+    static final int IFLE = 0x9e;
+    static final int IF_ICMPEQ = 0x9f;
+    static final int IF_ICMPNE = 0xa0;
+    static final int GOTO = 0xa7;
+    static final int LOOKUPSWITCH = 0xab;
+    static final int RETURN = 0xb1;
+    static final int GETSTATIC = 0xb2;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int INVOKEINTERFACE = 0xb9;
+    static final int NEW = 0xbb;
+    static final int ANEWARRAY = 0xbd;
+    static final int WIDE = 0xc4;
+}
@@ -0,0 +1,62 @@
+package jit;
+
+import runtime.Frame;
+import runtime.Input;
+import runtime.Output;
+import vm.Chunk;
+import vm.VM;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs a chunk on the VM until it has been invoked `threshold` times, then switches to
+// JIT compiled JVM bytecode. Cold programs never pay for code generation.
+public class TieredExecutor {
+    public static final int DEFAULT_THRESHOLD = Integer.getInteger("bisaya.jit.threshold", 1000);
+
+    private final Chunk chunk;
+    private final int threshold;
+    private final AtomicInteger invocations = new AtomicInteger();
+    private volatile CompiledCode compiled;
+    private volatile boolean failed;
+
+    public TieredExecutor(Chunk chunk) {
+        this(chunk, DEFAULT_THRESHOLD);
+    }
+
+    public TieredExecutor(Chunk chunk, int threshold) {
+        this.chunk = chunk;
+        this.threshold = threshold;
+    }
+
+    public void run() {
+        run(Output.standard(), Input.standard());
+    }
+
+    public void run(Output output, Input input) {
+        CompiledCode code = compiled;
+        if (code == null && !failed && invocations.incrementAndGet() >= threshold) {
+            code = compile();
+        }
+
+        if (code != null) {
+            JitRuntime.execute(code, new JitRuntime(chunk.slotNames, output, input));
+        } else {
+            new VM(chunk, new Frame(chunk.slotTypes), output, input).run();
+        }
+    }
+
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+
+    private synchronized CompiledCode compile() {
+        if (compiled == null && !failed) {
+            try {
+                compiled = JitCompiler.compile(chunk);
+            } catch (IllegalStateException e) {
+                failed = true; // e.g. too large for one JVM method; stay on the VM
+            }
+        }
+        return compiled;
+    }
+}
@@ -1,262 +1,359 @@
 package lexer;
 
+import java.io.*;
 import java.util.*;
 
+// Scans the source through a fixed-size window over a Reader, so only CHUNK_SIZE characters
+// of it are held at a time. Curly quotes are normalized as each chunk is read. Each character
+// is classified through a table and looked at once: words are read whole and then matched
+// against a keyword trie. Token text is gathered in a reusable scratch array and interned,
+// and tokens are appended to a TokenBuffer rather than allocated one by one.
 public class Lexer {
-    private String input;
-    private int position;
-    public List<Token> tokens;
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[CHUNK_SIZE];
+    private int start;     // index in buffer of the current character
+    private int limit;     // end of the characters read so far
+    private boolean eof;
+    private int position;  // offset of the current character in the whole source
+    private char[] text = new char[64];
+    private int length;
+    public TokenBuffer tokens;
 
     public Lexer(String input) {
-        this.input = input
-                .replace("‘", "'")   // Left single quote
-                .replace("’", "'")   // Right single quote
-                .replace("“", "\"")  // Left double quote
-                .replace("”", "\""); // Right double quote
-        this.position = 0;
-        this.tokens = new ArrayList<>();
+        this(new StringReader(input));
     }
 
-    public List<Token> tokenize() {
-        while (position < input.length()) {
-            char currentChar = input.charAt(position);
-
-            if (Character.isWhitespace(currentChar)) {
-                position++;
-                continue;
-            }
-
-            if (currentChar == '-' && lookahead("--")) {
-                skipComment();
-                continue;
-            }
-
-            // Handle parentheses explicitly
-            if (currentChar == '(') {
-                tokens.add(new Token(TokenType.LPAREN, "("));
-                position++;
-                continue;
-            }
-
-            if (currentChar == ')') {
-                tokens.add(new Token(TokenType.RPAREN, ")"));
-                position++;
-                continue;
-            }
-
-            // Handle braces explicitly
-            if (currentChar == '{') {
-                tokens.add(new Token(TokenType.LEFTBRACE, "{"));
-                position++;
-                continue;
-            }
-
-            if (currentChar == '}') {
-                tokens.add(new Token(TokenType.RIGHTBRACE, "}"));
-                position++;
-                continue;
-            }
-
-            // Check for keywords
-            if (lookahead("KUNG WALA")) {
-                tokens.add(new Token(TokenType.KEYWORD, "KUNG"));
-                position += 4;
-                tokens.add(new Token(TokenType.KEYWORD, "WALA"));
-                position += 5;
-                continue;
-            }
-
-            if (lookahead("SUGOD")) {
-                tokens.add(new Token(TokenType.KEYWORD, "SUGOD"));
-                position += 5;
-                continue;
-            }
-
-            if (lookahead("KATAPUSAN")) {
-                tokens.add(new Token(TokenType.KEYWORD, "KATAPUSAN"));
-                position += 9;
-                continue;
-            }
-
-            if (lookahead("MUGNA")) {
-                tokens.add(new Token(TokenType.KEYWORD, "MUGNA"));
-                position += 5;
-                continue;
-            }
+    public Lexer(Reader reader) {
+        this(reader, 0);
+    }
 
-            if (lookahead("IPAKITA")) {
-                tokens.add(new Token(TokenType.KEYWORD, "IPAKITA"));
-                position += 7;
-                continue;
-            }
+    // Lexes a piece of a larger source that starts `position` characters in
+    Lexer(Reader reader, int position) {
+        this.reader = reader;
+        this.position = position;
+        this.tokens = new TokenBuffer();
+    }
 
-            if (lookahead("DAWAT")) {
-                tokens.add(new Token(TokenType.KEYWORD, "DAWAT"));
-                position += 5;
-                continue;
-            }
+    public TokenBuffer tokenize() {
+        while (scan()) {
+        }
+        return tokens;
+    }
 
-            if (lookahead("KUNG")) {
-                tokens.add(new Token(TokenType.KEYWORD, "KUNG"));
-                position += 4;
-                continue;
-            }
+    // Offset of the current character; once tokenize returns, where the source ends
+    int position() {
+        return position;
+    }
 
-            if (lookahead("WALA")) {
-                tokens.add(new Token(TokenType.KEYWORD, "WALA"));
-                position += 4;
-                continue;
+    // Appends the next token to tokens; false at the end of the source
+    boolean scan() {
+        while (true) {
+            int current = peek(0);
+            if (current < 0) {
+                return false;
             }
+            char currentChar = (char) current;
+            int offset = position;
 
-            if (lookahead("PUNDOK")) {
-                tokens.add(new Token(TokenType.KEYWORD, "PUNDOK"));
-                position += 6;
-                continue;
+            switch (classOf(current)) {
+                case SPACE:
+                    advance(1);
+                    continue;
+                case LETTER:
+                    identifierOrKeyword(offset);
+                    return true;
+                case DIGIT:
+                    length = 0;
+                    extractNumber();
+                    TokenType type = TokenType.NUMERO;
+                    if (peek(0) == '.') {
+                        advance(1);
+                        append('.');
+                        extractNumber();
+                        type = TokenType.TIPIK;
+                    }
+                    tokens.add(type, tokens.intern(text, length), offset);
+                    return true;
+                default:
+                    break;
             }
 
-            if (lookahead("OO") || lookahead("DILI")) {
-                tokens.add(new Token(TokenType.TINUOD, lookahead("OO") ? "OO" : "DILI"));
-                position += lookahead("OO") ? 2 : 4;
-                continue;
+            int following = peek(1);
+            switch (currentChar) {
+                case '-':
+                    if (following == '-') {
+                        skipComment();
+                        continue;
+                    }
+                    break;
+                case '(':
+                    return fixed(TokenType.LPAREN, TokenBuffer.LEFT_PAREN, 1, offset);
+                case ')':
+                    return fixed(TokenType.RPAREN, TokenBuffer.RIGHT_PAREN, 1, offset);
+                case '{':
+                    return fixed(TokenType.LEFTBRACE, TokenBuffer.LEFT_BRACE, 1, offset);
+                case '}':
+                    return fixed(TokenType.RIGHTBRACE, TokenBuffer.RIGHT_BRACE, 1, offset);
+                case '"':
+                    extractString();
+                    tokens.add(TokenType.LETRA, tokens.intern(text, length), offset);
+                    return true;
+                case '\'':
+                    extractCharacter();
+                    tokens.add(TokenType.LETRA, tokens.intern(text, length), offset);
+                    return true;
+                case '[':
+                    return fixed(TokenType.LEFTESCAPEBRACKET, TokenBuffer.LEFT_BRACKET, 1, offset);
+                case ']':
+                    return fixed(TokenType.RIGHTESCAPEBRACKET, TokenBuffer.RIGHT_BRACKET, 1, offset);
+                case '<':
+                    if (following == '=') {
+                        return fixed(TokenType.OPERATOR, TokenBuffer.LESS_EQUAL, 2, offset);
+                    }
+                    if (following == '>') {
+                        return fixed(TokenType.OPERATOR, TokenBuffer.NOT_EQUAL, 2, offset);
+                    }
+                    break;
+                case '>':
+                    if (following == '=') {
+                        return fixed(TokenType.OPERATOR, TokenBuffer.GREATER_EQUAL, 2, offset);
+                    }
+                    break;
+                case '=':
+                    if (following == '=') {
+                        return fixed(TokenType.OPERATOR, TokenBuffer.EQUAL_EQUAL, 2, offset);
+                    }
+                    break;
+                case '&':
+                    if (following == '&') {
+                        return fixed(TokenType.OPERATOR, TokenBuffer.AND_AND, 2, offset);
+                    }
+                    break;
+                case ':':
+                    if (following == '=') {
+                        return fixed(TokenType.OPERATOR, TokenBuffer.COLON_EQUAL, 2, offset);
+                    }
+                    return fixed(TokenType.COLON, TokenBuffer.COLON, 1, offset);
+                case ',':
+                    return fixed(TokenType.COMMA, TokenBuffer.COMMA, 1, offset);
+                default:
+                    break;
             }
 
-            if (Character.isLetter(currentChar) || currentChar == '_') {
-                String identifier = extractIdentifier();
-                tokens.add(new Token(TokenType.IDENTIFIER, identifier));
-                continue;
+            // Handle other single character operators and symbols
+            if (currentChar < 128 && SYMBOLS[currentChar] >= 0) {
+                return fixed(TokenType.OPERATOR, SYMBOLS[currentChar], 1, offset);
             }
 
-            if (Character.isDigit(currentChar)) {
-                String number = extractNumber();
-                if (position < input.length() && input.charAt(position) == '.') {
-                    position++;
-                    number += "." + extractNumber();
-                    tokens.add(new Token(TokenType.TIPIK, number));
-                } else {
-                    tokens.add(new Token(TokenType.NUMERO, number));
-                }
-                continue;
-            }
+            throw new RuntimeException("Unexpected character: " + currentChar + " at position " + position);
+        }
+    }
 
-            if (currentChar == '"') {
-                tokens.add(new Token(TokenType.LETRA, extractString()));
-                continue;
-            }
+    private boolean fixed(TokenType type, int symbol, int width, int offset) {
+        advance(width);
+        tokens.add(type, symbol, offset);
+        return true;
+    }
 
-            if (currentChar == '\'') {
-                tokens.add(new Token(TokenType.LETRA, extractCharacter()));
-                continue;
+    // Character classes for ASCII; anything above is classified with Character's methods
+    private static final byte OTHER = 0, SPACE = 1, LETTER = 2, DIGIT = 3;
+    private static final byte[] CLASSES = new byte[128];
+    // Fixed symbol of each single character operator, or -1
+    private static final int[] SYMBOLS = new int[128];
+
+    static {
+        Arrays.fill(SYMBOLS, -1);
+        for (int c = 0; c < 128; c++) {
+            if (Character.isWhitespace(c)) {
+                CLASSES[c] = SPACE;
+            } else if (Character.isLetter(c) || c == '_') {
+                CLASSES[c] = LETTER;
+            } else if (Character.isDigit(c)) {
+                CLASSES[c] = DIGIT;
             }
+        }
+        for (int symbol = TokenBuffer.PLUS; symbol <= TokenBuffer.GREATER; symbol++) {
+            SYMBOLS[TokenBuffer.fixedText(symbol).charAt(0)] = symbol;
+        }
+    }
 
-            if(currentChar == '['){
-                tokens.add(new Token(TokenType.LEFTESCAPEBRACKET, String.valueOf(currentChar)));
-                position++;
-                continue;
-            }
+    private static byte classOf(int c) {
+        if (c < 0) {
+            return OTHER;
+        }
+        if (c < 128) {
+            return CLASSES[c];
+        }
+        if (Character.isWhitespace(c)) {
+            return SPACE;
+        }
+        if (Character.isLetter(c)) {
+            return LETTER;
+        }
+        return Character.isDigit(c) ? DIGIT : OTHER;
+    }
 
-            if(currentChar == ']'){
-                tokens.add(new Token(TokenType.RIGHTESCAPEBRACKET, String.valueOf(currentChar)));
-                position++;
-                continue;
-            }
+    // Keywords and boolean literals as a trie over 'A'..'Z'. An identifier walks the trie while
+    // it is being read and is a keyword only if the whole word ends on an accepting state, so
+    // OOPS or SUGODNA stay identifiers. KUNG WALA comes out as KUNG followed by WALA.
+    private static final int[] TRIE;
+    private static final int[] ACCEPT;  // fixed symbol of the word ending here, or -1
 
-            if (position + 1 < input.length()) {
-                String twoChars = input.substring(position, position + 2);
-                if (twoChars.equals("<=") || twoChars.equals(">=") ||
-                        twoChars.equals("==") || twoChars.equals("<>") ||
-                        twoChars.equals("&&") || twoChars.equals("&")) {
-                    tokens.add(new Token(TokenType.OPERATOR, twoChars));
-                    position += 2;
-                    continue;
+    static {
+        int states = 1;
+        for (int symbol = TokenBuffer.SUGOD; symbol <= TokenBuffer.DILI; symbol++) {
+            states += TokenBuffer.fixedText(symbol).length();
+        }
+        int[] trie = new int[states * 26];
+        Arrays.fill(trie, -1);
+        int[] accept = new int[states];
+        Arrays.fill(accept, -1);
+        int used = 1;
+        for (int symbol = TokenBuffer.SUGOD; symbol <= TokenBuffer.DILI; symbol++) {
+            String word = TokenBuffer.fixedText(symbol);
+            int state = 0;
+            for (int i = 0; i < word.length(); i++) {
+                int edge = state * 26 + word.charAt(i) - 'A';
+                if (trie[edge] < 0) {
+                    trie[edge] = used++;
                 }
+                state = trie[edge];
             }
+            accept[state] = symbol;
+        }
+        TRIE = trie;
+        ACCEPT = accept;
+    }
 
-            // Handle other single character operators and symbols
-            if ("+-*/%$&#,.=<>".indexOf(currentChar) != -1) {
-                tokens.add(new Token(currentChar == ',' ? TokenType.COMMA : TokenType.OPERATOR, String.valueOf(currentChar)));
-                position++;
-                continue;
-            }
-
-            if (currentChar == ':') {
-                if (position + 1 < input.length() && input.charAt(position + 1) == '=') {
-                    tokens.add(new Token(TokenType.OPERATOR, ":="));
-                    position += 2;
-                } else {
-                    tokens.add(new Token(TokenType.COLON, ":"));
-                    position++;
-                }
-                continue;
+    private void identifierOrKeyword(int offset) {
+        length = 0;
+        int state = 0;
+        int c;
+        while ((c = peek(0)) >= 0) {
+            byte kind = classOf(c);
+            if (kind != LETTER && kind != DIGIT) {
+                break;
             }
-
-            throw new RuntimeException("Unexpected character: " + currentChar + " at position " + position);
+            append((char) c);
+            state = state >= 0 && c >= 'A' && c <= 'Z' ? TRIE[state * 26 + c - 'A'] : -1;
+            advance(1);
+        }
+        int keyword = state >= 0 ? ACCEPT[state] : -1;
+        if (keyword == TokenBuffer.OO || keyword == TokenBuffer.DILI) {
+            tokens.add(TokenType.TINUOD, keyword, offset);
+        } else if (keyword >= 0) {
+            tokens.add(TokenType.KEYWORD, keyword, offset);
+        } else {
+            tokens.add(TokenType.IDENTIFIER, tokens.intern(text, length), offset);
         }
-
-        return tokens;
     }
 
-    private String extractIdentifier() {
-        StringBuilder identifier = new StringBuilder();
-        while (position < input.length() && (Character.isLetterOrDigit(input.charAt(position)) || input.charAt(position) == '_')) {
-            identifier.append(input.charAt(position));
-            position++;
+    private void append(char c) {
+        if (length == text.length) {
+            text = Arrays.copyOf(text, length * 2);
         }
-        return identifier.toString();
+        text[length++] = c;
     }
 
     private void skipComment() {
-        while (position < input.length() && input.charAt(position) != '\n') {
-            position++;
+        while (peek(0) >= 0 && peek(0) != '\n') {
+            advance(1);
         }
     }
 
-    private String extractNumber() {
-        StringBuilder number = new StringBuilder();
-        while (position < input.length() && Character.isDigit(input.charAt(position))) {
-            number.append(input.charAt(position));
-            position++;
+    // Appends a run of digits to the scratch text
+    private void extractNumber() {
+        while (classOf(peek(0)) == DIGIT) {
+            append((char) peek(0));
+            advance(1);
         }
-        return number.toString();
     }
 
-    private String extractCharacter() {
-        char delimiter = input.charAt(position);
-        position++;
+    private void extractCharacter() {
+        int delimiter = peek(0);
+        advance(1);
 
-        if (position >= input.length()) {
+        if (peek(0) < 0) {
             throw new RuntimeException("Unterminated character literal");
         }
 
-        char value = input.charAt(position);
-        position++;
+        length = 0;
+        append((char) peek(0));
+        advance(1);
 
-        if (position >= input.length() || input.charAt(position) != delimiter) {
+        if (peek(0) != delimiter) {
             throw new RuntimeException("Unterminated character literal");
         }
 
-        position++;
-        return String.valueOf(value);
+        advance(1);
     }
 
-    private boolean lookahead(String keyword) {
-        return input.startsWith(keyword, position);
-    }
+    private void extractString() {
+        int delimiter = peek(0);
+        length = 0;
+        advance(1);
 
-    private String extractString() {
-        char delimiter = input.charAt(position);
-        StringBuilder sb = new StringBuilder();
-        position++;
-
-        while (position < input.length() && input.charAt(position) != delimiter) {
-            sb.append(input.charAt(position));
-            position++;
+        while (peek(0) >= 0 && peek(0) != delimiter) {
+            append((char) peek(0));
+            advance(1);
         }
 
-        if (position >= input.length()) {
+        if (peek(0) < 0) {
             throw new RuntimeException("Unterminated string literal");
         }
 
-        position++;
-        return sb.toString();
+        advance(1);
+    }
+
+    // The character `offset` places ahead of the current one, or -1 past the end of the source
+    private int peek(int offset) {
+        if (start + offset >= limit) {
+            fill(offset + 1);
+        }
+        return start + offset < limit ? buffer[start + offset] : -1;
+    }
+
+    private void advance(int count) {
+        start += count;
+        position += count;
+    }
+
+    // Reads until `needed` characters are available from start, or the source ends
+    private void fill(int needed) {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            limit -= start;
+            start = 0;
+        }
+        try {
+            while (!eof && limit < needed) {
+                int read = reader.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    eof = true;
+                    break;
+                }
+                normalizeQuotes(limit, limit + read);
+                limit += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void normalizeQuotes(int from, int to) {
+        for (int i = from; i < to; i++) {
+            switch (buffer[i]) {
+                case '‘': // Left single quote
+                case '’': // Right single quote
+                    buffer[i] = '\'';
+                    break;
+                case '“': // Left double quote
+                case '”': // Right double quote
+                    buffer[i] = '"';
+                    break;
+            }
+        }
     }
-}
\ No newline at end of file
+}
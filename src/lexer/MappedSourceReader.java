@@ -0,0 +1,111 @@
+package lexer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.MalformedInputException;
+import java.nio.file.*;
+
+// Reads a UTF-8 source file through a memory mapping, decoding as the lexer asks for
+// characters. Nothing is copied onto the heap beyond the lexer's own window, so only the
+// pages actually scanned become resident. Files over REGION bytes are mapped a region at a time.
+public final class MappedSourceReader extends Reader {
+    private static final long REGION = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private ByteBuffer region;
+    private long regionStart;
+    private char pendingLow;  // second half of a surrogate pair that did not fit last time
+
+    public MappedSourceReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        map(0);
+    }
+
+    // Decodes a slice of an existing mapping; the caller owns the channel
+    MappedSourceReader(ByteBuffer bytes) {
+        this.channel = null;
+        this.size = bytes.remaining();
+        this.region = bytes;
+    }
+
+    private void map(long start) throws IOException {
+        regionStart = start;
+        region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION, size - start));
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        int count = 0;
+        if (pendingLow != 0) {
+            chars[offset + count++] = pendingLow;
+            pendingLow = 0;
+        }
+
+        while (count < length) {
+            // Move on to the next region before a sequence could straddle its end
+            if (region.remaining() < 4 && regionStart + region.limit() < size) {
+                map(regionStart + region.position());
+            }
+            if (!region.hasRemaining()) {
+                break;
+            }
+
+            int b = region.get();
+            if (b >= 0) {
+                chars[offset + count++] = (char) b;
+                continue;
+            }
+
+            int codePoint;
+            if ((b & 0xE0) == 0xC0) {
+                codePoint = ((b & 0x1F) << 6) | continuation();
+                if (codePoint < 0x80) throw new MalformedInputException(2);
+            } else if ((b & 0xF0) == 0xE0) {
+                codePoint = ((b & 0x0F) << 12) | (continuation() << 6) | continuation();
+                if (codePoint < 0x800 || Character.isSurrogate((char) codePoint)) throw new MalformedInputException(3);
+            } else if ((b & 0xF8) == 0xF0) {
+                codePoint = ((b & 0x07) << 18) | (continuation() << 12) | (continuation() << 6) | continuation();
+                if (codePoint < 0x10000 || codePoint > Character.MAX_CODE_POINT) throw new MalformedInputException(4);
+            } else {
+                throw new MalformedInputException(1);
+            }
+
+            if (codePoint < 0x10000) {
+                chars[offset + count++] = (char) codePoint;
+            } else {
+                chars[offset + count++] = Character.highSurrogate(codePoint);
+                char low = Character.lowSurrogate(codePoint);
+                if (count < length) {
+                    chars[offset + count++] = low;
+                } else {
+                    pendingLow = low;
+                }
+            }
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    private int continuation() throws IOException {
+        if (!region.hasRemaining()) {
+            throw new MalformedInputException(1);
+        }
+        int b = region.get();
+        if ((b & 0xC0) != 0x80) {
+            throw new MalformedInputException(1);
+        }
+        return b & 0x3F;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
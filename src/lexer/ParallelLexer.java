@@ -0,0 +1,97 @@
+package lexer;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Lexes a memory-mapped source in pieces on a ForkJoinPool. Each piece starts at the first
+// newline after an even share of the source, found by looking only at the bytes from that
+// share's offset on. Newline is ASCII, so it never occurs inside a multi-byte UTF-8 sequence.
+//
+// A newline is a token boundary unless it sits in a string or character literal, and a piece
+// that ends inside one fails to lex with an unterminated literal. So the pieces are lexed
+// speculatively and joined in source order: while every piece before it lexed cleanly, a
+// piece started where the sequential lexer would have, and its tokens are kept. At the first
+// piece that fails the rest of the source is lexed in one go from that piece's start, which
+// also reports a real lexical error at the right position.
+public final class ParallelLexer {
+    private static final int MIN_PIECE = 1 << 20;
+
+    private ParallelLexer() {
+    }
+
+    public static TokenBuffer tokenize(Path path, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int pieces = (int) Math.min(pool.getParallelism() * 4L, size / MIN_PIECE);
+            if (pool.getParallelism() < 2 || pieces < 2 || size > Integer.MAX_VALUE) {
+                try (Reader source = new MappedSourceReader(path)) {
+                    return new Lexer(source).tokenize();
+                }
+            }
+
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int[] starts = split(bytes, pieces);
+
+            // Pieces are lexed from position 0 and shifted into place as they are joined
+            List<CompletableFuture<Lexer>> results = new ArrayList<>();
+            for (int i = 0; i < starts.length; i++) {
+                int from = starts[i];
+                int to = i + 1 < starts.length ? starts[i + 1] : (int) size;
+                Reader piece = new MappedSourceReader(bytes.slice(from, to - from));
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    Lexer lexer = new Lexer(piece);
+                    lexer.tokenize();
+                    return lexer;
+                }, pool));
+            }
+
+            TokenBuffer tokens = null;
+            int position = 0;
+            for (int i = 0; i < results.size(); i++) {
+                Lexer piece;
+                try {
+                    piece = results.get(i).join();
+                } catch (CompletionException e) {
+                    for (CompletableFuture<Lexer> later : results.subList(i + 1, results.size())) {
+                        later.cancel(false);
+                    }
+                    Reader rest = new MappedSourceReader(bytes.slice(starts[i], (int) size - starts[i]));
+                    TokenBuffer remaining = new Lexer(rest, position).tokenize();
+                    if (tokens == null) {
+                        return remaining;
+                    }
+                    tokens.append(remaining, 0);
+                    return tokens;
+                }
+                if (tokens == null) {
+                    tokens = piece.tokens;
+                } else {
+                    tokens.append(piece.tokens, position);
+                }
+                position += piece.position();
+            }
+            return tokens;
+        }
+    }
+
+    // Byte offsets where the pieces start. Targets that share a line give one piece.
+    private static int[] split(MappedByteBuffer bytes, int pieces) {
+        int size = bytes.limit();
+        int[] starts = new int[pieces];
+        int count = 1;
+        for (int k = 1; k < pieces; k++) {
+            int i = Math.max((int) ((long) size * k / pieces), starts[count - 1]);
+            while (i < size && bytes.get(i) != '\n') {
+                i++;
+            }
+            if (i + 1 < size) {
+                starts[count++] = i + 1;
+            }
+        }
+        return Arrays.copyOf(starts, count);
+    }
+}
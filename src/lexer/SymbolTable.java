@@ -0,0 +1,105 @@
+package lexer;
+
+import java.util.Arrays;
+
+// Interns token text straight from the lexer's scratch buffer. A spelling seen before is
+// found by hashing and comparing the characters in place, so only the first occurrence of
+// each distinct identifier, number or string allocates a String.
+final class SymbolTable {
+    private String[] texts;
+    private int[] hashes;
+    private int[] table;   // open addressing: symbol + 1, or 0 when empty
+    private int size;
+
+    SymbolTable(String[] fixed) {
+        texts = new String[64];
+        hashes = new int[texts.length];
+        table = new int[Integer.highestOneBit(Math.max(16, fixed.length * 4) - 1) << 1];  // a power of two
+        for (String text : fixed) {
+            intern(text.toCharArray(), text.length());
+        }
+    }
+
+    String text(int symbol) {
+        return texts[symbol];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int intern(char[] chars, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int index = find(hash, chars, length);
+        if (table[index] != 0) {
+            return table[index] - 1;
+        }
+        return insert(new String(chars, 0, length), hash, index);
+    }
+
+    // Same as above for text that is already a String, e.g. when merging another table
+    int intern(String text) {
+        char[] chars = text.toCharArray();
+        int index = find(text.hashCode(), chars, chars.length);
+        if (table[index] != 0) {
+            return table[index] - 1;
+        }
+        return insert(text, text.hashCode(), index);
+    }
+
+    // The slot holding this text, or the empty slot where it belongs
+    private int find(int hash, char[] chars, int length) {
+        int mask = table.length - 1;
+        int index = hash & mask;
+        while (table[index] != 0) {
+            int symbol = table[index] - 1;
+            if (hashes[symbol] == hash && matches(texts[symbol], chars, length)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private int insert(String text, int hash, int index) {
+        if (size == texts.length) {
+            texts = Arrays.copyOf(texts, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int symbol = size++;
+        texts[symbol] = text;
+        hashes[symbol] = hash;
+        table[index] = symbol + 1;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return symbol;
+    }
+
+    private static boolean matches(String text, char[] chars, int length) {
+        if (text.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int symbol = 0; symbol < size; symbol++) {
+            int index = hashes[symbol] & mask;
+            while (table[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            table[index] = symbol + 1;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package lexer;
+
+import java.util.Arrays;
+
+// The lexer's output as parallel arrays: a type code, an interned text symbol and the source
+// offset for each token. Keywords, operators and punctuation have fixed symbols, so the parser
+// tells them apart by comparing ints. Token objects are only built on demand, e.g. for errors.
+public final class TokenBuffer {
+    // Fixed symbols, in the order of FIXED
+    public static final int SUGOD = 0, KATAPUSAN = 1, MUGNA = 2, IPAKITA = 3, DAWAT = 4,
+            KUNG = 5, WALA = 6, PUNDOK = 7, OO = 8, DILI = 9, UG = 10, O = 11,
+            LEFT_PAREN = 12, RIGHT_PAREN = 13, LEFT_BRACE = 14, RIGHT_BRACE = 15,
+            LEFT_BRACKET = 16, RIGHT_BRACKET = 17, COMMA = 18, COLON = 19, COLON_EQUAL = 20,
+            PLUS = 21, MINUS = 22, STAR = 23, SLASH = 24, PERCENT = 25, DOLLAR = 26,
+            AMPERSAND = 27, HASH = 28, DOT = 29, EQUAL = 30, LESS = 31, GREATER = 32,
+            LESS_EQUAL = 33, GREATER_EQUAL = 34, EQUAL_EQUAL = 35, NOT_EQUAL = 36, AND_AND = 37;
+
+    static final String[] FIXED = {
+            "SUGOD", "KATAPUSAN", "MUGNA", "IPAKITA", "DAWAT", "KUNG", "WALA", "PUNDOK", "OO", "DILI",
+            "UG", "O", "(", ")", "{", "}", "[", "]", ",", ":", ":=",
+            "+", "-", "*", "/", "%", "$", "&", "#", ".", "=", "<", ">", "<=", ">=", "==", "<>", "&&"
+    };
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private byte[] types = new byte[256];
+    private int[] symbols = new int[256];
+    private int[] offsets = new int[256];
+    private int size;
+    private final SymbolTable texts = new SymbolTable(FIXED);
+
+    public int size() {
+        return size;
+    }
+
+    public TokenType type(int index) {
+        return TYPES[types[index]];
+    }
+
+    public int symbol(int index) {
+        return symbols[index];
+    }
+
+    public String text(int index) {
+        return texts.text(symbols[index]);
+    }
+
+    // Offset of the token's first character in the source
+    public int offset(int index) {
+        return offsets[index];
+    }
+
+    public Token get(int index) {
+        return new Token(type(index), text(index));
+    }
+
+    public static String fixedText(int symbol) {
+        return FIXED[symbol];
+    }
+
+    void add(TokenType type, int symbol, int offset) {
+        if (size == types.length) {
+            grow(size + 1);
+        }
+        types[size] = (byte) type.ordinal();
+        symbols[size] = symbol;
+        offsets[size] = offset;
+        size++;
+    }
+
+    // Drops the first count tokens; the text symbols stay interned
+    void discard(int count) {
+        System.arraycopy(types, count, types, 0, size - count);
+        System.arraycopy(symbols, count, symbols, 0, size - count);
+        System.arraycopy(offsets, count, offsets, 0, size - count);
+        size -= count;
+    }
+
+    // Appends another buffer's tokens, mapping its text symbols into this buffer's table and
+    // moving their offsets `shift` characters on
+    void append(TokenBuffer other, int shift) {
+        int[] remap = new int[other.texts.size()];
+        for (int symbol = 0; symbol < remap.length; symbol++) {
+            remap[symbol] = symbol < FIXED.length ? symbol : texts.intern(other.texts.text(symbol));
+        }
+        if (size + other.size > types.length) {
+            grow(size + other.size);
+        }
+        System.arraycopy(other.types, 0, types, size, other.size);
+        for (int i = 0; i < other.size; i++) {
+            symbols[size + i] = remap[other.symbols[i]];
+            offsets[size + i] = other.offsets[i] + shift;
+        }
+        size += other.size;
+    }
+
+    private void grow(int needed) {
+        int capacity = Math.max(needed, types.length * 2);
+        types = Arrays.copyOf(types, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+    }
+
+    int intern(char[] chars, int length) {
+        return texts.intern(chars, length);
+    }
+}
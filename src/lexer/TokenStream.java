@@ -0,0 +1,66 @@
+package lexer;
+
+// The parser's view of the tokens: a cursor with a few tokens of lookahead. Over a Lexer
+// it pulls tokens only as the parser reaches them and drops the ones already consumed, so
+// the token window stays a handful of entries however long the program is. It can also
+// walk a complete TokenBuffer, e.g. one produced by ParallelLexer.
+public final class TokenStream {
+    private static final int COMPACT_AFTER = 64;
+
+    private final Lexer lexer;
+    private final TokenBuffer tokens;
+    private int position;
+    private boolean exhausted;
+
+    public TokenStream(Lexer lexer) {
+        this.lexer = lexer;
+        this.tokens = lexer.tokens;
+    }
+
+    public TokenStream(TokenBuffer tokens) {
+        this.lexer = null;
+        this.tokens = tokens;
+        this.exhausted = true;
+    }
+
+    // Type of the token `ahead` places past the cursor, or null past the end
+    public TokenType type(int ahead) {
+        return fill(ahead) ? tokens.type(position + ahead) : null;
+    }
+
+    public int symbol(int ahead) {
+        return fill(ahead) ? tokens.symbol(position + ahead) : -1;
+    }
+
+    public String text(int ahead) {
+        return fill(ahead) ? tokens.text(position + ahead) : null;
+    }
+
+    public Token get(int ahead) {
+        return fill(ahead) ? tokens.get(position + ahead) : null;
+    }
+
+    public void advance() {
+        advance(1);
+    }
+
+    public void advance(int count) {
+        position += count;
+        if (lexer != null && position >= COMPACT_AFTER) {
+            int consumed = Math.min(position, tokens.size());
+            tokens.discard(consumed);
+            position -= consumed;
+        }
+    }
+
+    // Lexes until the token `ahead` places on exists; false if the source ends first
+    private boolean fill(int ahead) {
+        while (position + ahead >= tokens.size()) {
+            if (exhausted || !lexer.scan()) {
+                exhausted = true;
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,64 @@
+package optimizer;
+
+import ast.*;
+
+// Renders an expression back to Bisaya++ source for the fold report
+final class ExpressionPrinter implements ExpressionVisitor<String> {
+    static final ExpressionPrinter INSTANCE = new ExpressionPrinter();
+
+    static String print(Expression expression) {
+        return expression.accept(INSTANCE);
+    }
+
+    @Override
+    public String visitIntegerLiteral(IntegerLiteral expression) {
+        return Long.toString(expression.value);
+    }
+
+    @Override
+    public String visitNumberLiteral(NumberLiteral expression) {
+        return Double.toString(expression.value);
+    }
+
+    @Override
+    public String visitBooleanLiteral(BooleanLiteral expression) {
+        return expression.value ? "OO" : "DILI";
+    }
+
+    @Override
+    public String visitStringLiteral(StringLiteral expression) {
+        return "\"" + expression.value + "\"";
+    }
+
+    @Override
+    public String visitVariable(Variable expression) {
+        return expression.name;
+    }
+
+    @Override
+    public String visitUnaryExpression(UnaryExpression expression) {
+        if (expression.operator == Operator.NOT) {
+            return "DILI(" + expression.operand.accept(this) + ")";
+        }
+        return "-" + operand(expression.operand, Operator.NEG.precedence, false);
+    }
+
+    @Override
+    public String visitBinaryExpression(BinaryExpression expression) {
+        int precedence = expression.operator.precedence;
+        return operand(expression.left, precedence, false) + " " + expression.operator.symbol + " "
+                + operand(expression.right, precedence, true);
+    }
+
+    // Parenthesizes a binary operand that binds more loosely than its parent
+    private String operand(Expression expression, int parentPrecedence, boolean right) {
+        String text = expression.accept(this);
+        if (expression instanceof BinaryExpression) {
+            int precedence = ((BinaryExpression) expression).operator.precedence;
+            if (precedence < parentPrecedence || (right && precedence == parentPrecedence)) {
+                return "(" + text + ")";
+            }
+        }
+        return text;
+    }
+}
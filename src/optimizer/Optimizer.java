@@ -0,0 +1,527 @@
+package optimizer;
+
+import ast.*;
+import runtime.Kind;
+import runtime.Values;
+
+import java.util.*;
+
+// Folds constant subexpressions, propagates variables that are only ever given a constant,
+// drops KUNG arms that can never run and turns KUNG chains over one NUMERO into jump tables.
+// Works on a resolved Program and returns a new one; every change is recorded in report().
+// A fold that would fail at run time (division by zero, overflow, a bad conversion) is left
+// in place so the error still happens where it did.
+public class Optimizer implements StatementVisitor<Void>, ExpressionVisitor<Expression> {
+    // Shorter chains are as cheap to test arm by arm as to look up
+    private static final int MIN_SWITCH_ARMS = 4;
+
+    private final List<String> report = new ArrayList<>();
+    private Expression[] constants;
+    private int[] definitions;
+    private List<Statement> out;
+    private int depth; // number of enclosing KUNG arms that may not run
+
+    public Program optimize(Program program) {
+        constants = new Expression[program.slotTypes.length];
+        definitions = new int[program.slotTypes.length];
+        new DefinitionCounter().countAll(program.statements);
+
+        List<Statement> statements = optimizeAll(program.statements);
+        return new Program(statements, program.slotNames, program.slotTypes);
+    }
+
+    public List<String> report() {
+        return Collections.unmodifiableList(report);
+    }
+
+    private List<Statement> optimizeAll(List<Statement> statements) {
+        List<Statement> enclosing = out;
+        out = new ArrayList<>(statements.size());
+        for (Statement statement : statements) {
+            statement.accept(this);
+        }
+        List<Statement> result = out;
+        out = enclosing;
+        return result;
+    }
+
+    // Emits the statements into the current block, e.g. the body of a KUNG that always runs
+    private void inline(List<Statement> statements) {
+        for (Statement statement : statements) {
+            statement.accept(this);
+        }
+    }
+
+    @Override
+    public Void visitVariableDeclaration(VariableDeclaration statement) {
+        List<VariableDeclaration.Declarator> declarators = new ArrayList<>();
+
+        for (VariableDeclaration.Declarator declarator : statement.declarators) {
+            Expression initializer = declarator.initializer == null ? null : fold(declarator.initializer);
+            Expression value = initializer == null ? defaultValue(statement.type) : convert(initializer, statement.type);
+
+            // A single unconditional definition with a constant value: every read can use the value
+            if (depth == 0 && definitions[declarator.slot] == 1 && value != null) {
+                constants[declarator.slot] = value;
+                report.add("propagated constant " + declarator.name + " = " + ExpressionPrinter.print(value));
+            } else {
+                declarators.add(new VariableDeclaration.Declarator(declarator.name, declarator.slot, initializer));
+            }
+        }
+        if (!declarators.isEmpty()) {
+            out.add(new VariableDeclaration(statement.type, declarators));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitAssignment(Assignment statement) {
+        out.add(new Assignment(statement.targets, statement.slots, statement.type, fold(statement.value)));
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStatement(PrintStatement statement) {
+        List<PrintStatement.Segment> segments = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+
+        for (PrintStatement.Segment segment : statement.segments) {
+            switch (segment.kind) {
+                case TEXT:
+                    text.append(segment.text);
+                    break;
+                case VARIABLE: {
+                    Variable variable = (Variable) segment.expression;
+                    Expression value = constants[variable.slot];
+                    if (value != null) {
+                        appendVariable(text, variable.type, value);
+                    } else {
+                        flushText(segments, text);
+                        segments.add(segment);
+                    }
+                    break;
+                }
+                case EXPRESSION: {
+                    Expression value = fold(segment.expression);
+                    if (value instanceof IntegerLiteral) {
+                        text.append(((IntegerLiteral) value).value);
+                    } else if (value instanceof NumberLiteral) {
+                        Values.appendNumber(text, ((NumberLiteral) value).value);
+                    } else {
+                        flushText(segments, text);
+                        segments.add(PrintStatement.Segment.expression(value));
+                    }
+                    break;
+                }
+                default:
+                    flushText(segments, text);
+                    segments.add(segment);
+                    break;
+            }
+        }
+
+        flushText(segments, text);
+        out.add(new PrintStatement(segments));
+        return null;
+    }
+
+    private static void appendVariable(StringBuilder text, Type type, Expression value) {
+        switch (type) {
+            case NUMERO:
+                text.append(((IntegerLiteral) value).value);
+                break;
+            case TIPIK:
+                text.append(((NumberLiteral) value).value);
+                break;
+            case TINUOD:
+                text.append(((BooleanLiteral) value).value ? "OO" : "DILI");
+                break;
+            default:
+                text.append(((StringLiteral) value).value);
+                break;
+        }
+    }
+
+    private static void flushText(List<PrintStatement.Segment> segments, StringBuilder text) {
+        if (text.length() > 0) {
+            segments.add(PrintStatement.Segment.text(text.toString()));
+            text.setLength(0);
+        }
+    }
+
+    @Override
+    public Void visitInputStatement(InputStatement statement) {
+        out.add(statement);
+        return null;
+    }
+
+    @Override
+    public Void visitIfStatement(IfStatement statement) {
+        List<IfStatement.Branch> branches = new ArrayList<>();
+        List<Statement> otherwise = null;
+        boolean decided = false;
+
+        depth++;
+        for (IfStatement.Branch branch : statement.branches) {
+            Expression condition = fold(branch.condition);
+            String arm = branch == statement.branches.get(0) ? "KUNG" : "KUNG DILI";
+
+            if (isConstant(condition) && !toBoolean(condition)) {
+                report.add("removed " + arm + " (" + ExpressionPrinter.print(branch.condition) + "): never runs");
+                continue;
+            }
+            if (isConstant(condition)) {
+                // Always taken: it ends the chain, later arms and KUNG WALA can never run
+                report.add(arm + " (" + ExpressionPrinter.print(branch.condition) + ") always runs"
+                        + (branches.isEmpty() ? ", inlined its block" : ", it becomes the KUNG WALA"));
+                if (branches.isEmpty()) {
+                    depth--;
+                    inline(branch.body);
+                    return null;
+                }
+                otherwise = optimizeAll(branch.body);
+                decided = true;
+                break;
+            }
+            branches.add(new IfStatement.Branch(condition, optimizeAll(branch.body)));
+        }
+        if (!decided && statement.otherwise != null) {
+            if (branches.isEmpty()) {
+                report.add("KUNG WALA always runs, inlined its block");
+                depth--;
+                inline(statement.otherwise);
+                return null;
+            }
+            otherwise = optimizeAll(statement.otherwise);
+        }
+        depth--;
+
+        if (branches.size() >= MIN_SWITCH_ARMS) {
+            SwitchStatement table = switchTable(branches, otherwise);
+            if (table != null) {
+                out.add(table);
+                return null;
+            }
+        }
+        if (!branches.isEmpty()) {
+            out.add(new IfStatement(branches, otherwise));
+        }
+        return null;
+    }
+
+    // KUNG (x == 1) .. KUNG DILI (x == 2) .. as a key table, or null when an arm tests anything else
+    private SwitchStatement switchTable(List<IfStatement.Branch> branches, List<Statement> otherwise) {
+        Variable selector = null;
+        Map<Long, Integer> firstArm = new TreeMap<>();
+        List<List<Statement>> bodies = new ArrayList<>();
+        int duplicates = 0;
+
+        for (IfStatement.Branch branch : branches) {
+            if (!(branch.condition instanceof BinaryExpression)) {
+                return null;
+            }
+            BinaryExpression test = (BinaryExpression) branch.condition;
+            boolean keyFirst = test.left instanceof IntegerLiteral;
+            Expression variable = keyFirst ? test.right : test.left;
+            Expression key = keyFirst ? test.left : test.right;
+            if (test.operator != Operator.EQ || !(key instanceof IntegerLiteral) || !(variable instanceof Variable)
+                    || ((Variable) variable).type != Type.NUMERO) {
+                return null;
+            }
+            if (selector == null) {
+                selector = (Variable) variable;
+            } else if (selector.slot != ((Variable) variable).slot) {
+                return null;
+            }
+
+            // A repeated value can only ever reach the first arm that tests it
+            long value = ((IntegerLiteral) key).value;
+            if (firstArm.containsKey(value)) {
+                duplicates++;
+                continue;
+            }
+            firstArm.put(value, bodies.size());
+            bodies.add(branch.body);
+        }
+
+        long[] keys = new long[firstArm.size()];
+        int[] arms = new int[firstArm.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> entry : firstArm.entrySet()) {
+            keys[i] = entry.getKey();
+            arms[i++] = entry.getValue();
+        }
+        report.add("KUNG chain on " + selector.name + " with " + branches.size() + " arms became a jump table"
+                + (duplicates > 0 ? ", dropped " + duplicates + " arm(s) repeating an earlier value" : ""));
+        return new SwitchStatement(selector, keys, arms, bodies, otherwise);
+    }
+
+    @Override
+    public Void visitSwitchStatement(SwitchStatement statement) {
+        List<List<Statement>> bodies = new ArrayList<>();
+        depth++;
+        for (List<Statement> body : statement.bodies) {
+            bodies.add(optimizeAll(body));
+        }
+        List<Statement> otherwise = statement.otherwise == null ? null : optimizeAll(statement.otherwise);
+        depth--;
+        out.add(new SwitchStatement(statement.selector, statement.keys, statement.arms, bodies, otherwise));
+        return null;
+    }
+
+    // Folds a statement level expression and reports it when anything changed
+    private Expression fold(Expression expression) {
+        Expression folded = expression.accept(this);
+        if (folded != expression) {
+            String before = ExpressionPrinter.print(expression);
+            String after = ExpressionPrinter.print(folded);
+            if (!before.equals(after)) { // -40 is folded to a literal but reads the same
+                report.add("folded " + before + " to " + after);
+            }
+        }
+        return folded;
+    }
+
+    @Override
+    public Expression visitIntegerLiteral(IntegerLiteral expression) {
+        return expression;
+    }
+
+    @Override
+    public Expression visitNumberLiteral(NumberLiteral expression) {
+        return expression;
+    }
+
+    @Override
+    public Expression visitBooleanLiteral(BooleanLiteral expression) {
+        return expression;
+    }
+
+    @Override
+    public Expression visitStringLiteral(StringLiteral expression) {
+        return expression;
+    }
+
+    @Override
+    public Expression visitVariable(Variable expression) {
+        Expression value = constants[expression.slot];
+        return value != null ? value : expression;
+    }
+
+    @Override
+    public Expression visitUnaryExpression(UnaryExpression expression) {
+        Expression operand = expression.operand.accept(this);
+        if (isConstant(operand)) {
+            try {
+                if (expression.operator == Operator.NOT) {
+                    return new BooleanLiteral(!toBoolean(operand));
+                }
+                if (operand instanceof IntegerLiteral) {
+                    return new IntegerLiteral(Values.negate(((IntegerLiteral) operand).value));
+                }
+                return new NumberLiteral(-toNumber(operand));
+            } catch (RuntimeException e) {
+                // Fails at run time as well; keep it there
+            }
+        }
+        return operand == expression.operand ? expression : new UnaryExpression(expression.operator, operand);
+    }
+
+    @Override
+    public Expression visitBinaryExpression(BinaryExpression expression) {
+        Operator op = expression.operator;
+        Expression left = expression.left.accept(this);
+        Expression right = expression.right.accept(this);
+
+        if ((op == Operator.AND || op == Operator.OR) && isConstant(left)) {
+            // A constant left operand decides UG/O or leaves just the right operand
+            if (toBoolean(left) == (op == Operator.OR)) {
+                return new BooleanLiteral(op == Operator.OR);
+            }
+            if (isConstant(right)) {
+                return new BooleanLiteral(toBoolean(right));
+            }
+            if (Kind.of(right) == Kind.BOOLEAN) {
+                return right;
+            }
+        } else if (isConstant(left) && isConstant(right)) {
+            try {
+                Expression folded = op.isArithmetic() ? arithmetic(op, left, right) : compare(op, left, right);
+                if (folded != null) {
+                    return folded;
+                }
+            } catch (RuntimeException e) {
+                // Fails at run time as well; keep it there
+            }
+        }
+
+        if (left == expression.left && right == expression.right) {
+            return expression;
+        }
+        return new BinaryExpression(op, left, right);
+    }
+
+    private static Expression arithmetic(Operator op, Expression left, Expression right) {
+        if (left instanceof IntegerLiteral && right instanceof IntegerLiteral) {
+            long a = ((IntegerLiteral) left).value;
+            long b = ((IntegerLiteral) right).value;
+            switch (op) {
+                case ADD: return new IntegerLiteral(Values.add(a, b));
+                case SUB: return new IntegerLiteral(Values.subtract(a, b));
+                case MUL: return new IntegerLiteral(Values.multiply(a, b));
+                case DIV: return null;  // truncating or TIPIK depending on where the result goes
+                default: return new IntegerLiteral(Values.remainder(a, b));
+            }
+        }
+
+        double a = toNumber(left);
+        double b = toNumber(right);
+        switch (op) {
+            case ADD: return new NumberLiteral(a + b);
+            case SUB: return new NumberLiteral(a - b);
+            case MUL: return new NumberLiteral(a * b);
+            case DIV: return new NumberLiteral(Values.divide(a, b));
+            default: return new NumberLiteral(Values.remainder(a, b));
+        }
+    }
+
+    // Same rules as the VM's typed comparisons; null when it must stay a run time error
+    private static Expression compare(Operator op, Expression left, Expression right) {
+        Kind leftKind = Kind.of(left);
+        Kind rightKind = Kind.of(right);
+
+        if (leftKind == Kind.INTEGER && rightKind == Kind.INTEGER) {
+            return new BooleanLiteral(Values.compareIntegers(op,
+                    ((IntegerLiteral) left).value, ((IntegerLiteral) right).value));
+        }
+        if (leftKind == Kind.BOOLEAN && rightKind == Kind.BOOLEAN) {
+            boolean a = ((BooleanLiteral) left).value;
+            boolean b = ((BooleanLiteral) right).value;
+            if (op == Operator.EQ) return new BooleanLiteral(a == b);
+            if (op == Operator.NE) return new BooleanLiteral(a != b);
+            return null;
+        }
+        if (leftKind != Kind.STRING && rightKind != Kind.STRING) {
+            return new BooleanLiteral(Values.compareNumbers(op, toNumber(left), toNumber(right)));
+        }
+        return new BooleanLiteral(Values.compareMixed(op, box(left), box(right)));
+    }
+
+    // The value a slot of `type` holds after storing `value`, or null when that is not a constant
+    private static Expression convert(Expression value, Type type) {
+        if (!isConstant(value)) {
+            return null;
+        }
+        try {
+            switch (Kind.of(type)) {
+                case INTEGER:
+                    if (value instanceof IntegerLiteral) return value;
+                    if (value instanceof StringLiteral) return new IntegerLiteral(Values.toInteger(((StringLiteral) value).value));
+                    return new IntegerLiteral(Values.toInteger(toNumber(value)));
+                case NUMBER:
+                    return new NumberLiteral(toNumber(value));
+                case BOOLEAN:
+                    return new BooleanLiteral(toBoolean(value));
+                default:
+                    return value instanceof StringLiteral ? value : null;
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Expression defaultValue(Type type) {
+        switch (Kind.of(type)) {
+            case INTEGER: return new IntegerLiteral(0);
+            case NUMBER: return new NumberLiteral(0);
+            case BOOLEAN: return new BooleanLiteral(false);
+            default: return new StringLiteral("");
+        }
+    }
+
+    private static boolean isConstant(Expression expression) {
+        return expression instanceof IntegerLiteral || expression instanceof NumberLiteral
+                || expression instanceof BooleanLiteral || expression instanceof StringLiteral;
+    }
+
+    private static double toNumber(Expression constant) {
+        if (constant instanceof IntegerLiteral) return ((IntegerLiteral) constant).value;
+        if (constant instanceof NumberLiteral) return ((NumberLiteral) constant).value;
+        if (constant instanceof BooleanLiteral) return ((BooleanLiteral) constant).value ? 1.0 : 0.0;
+        return Values.toNumber(((StringLiteral) constant).value);
+    }
+
+    private static boolean toBoolean(Expression constant) {
+        if (constant instanceof IntegerLiteral) return ((IntegerLiteral) constant).value != 0;
+        if (constant instanceof NumberLiteral) return ((NumberLiteral) constant).value != 0;
+        if (constant instanceof BooleanLiteral) return ((BooleanLiteral) constant).value;
+        return Values.toBoolean(((StringLiteral) constant).value);
+    }
+
+    private static Object box(Expression constant) {
+        if (constant instanceof IntegerLiteral) return ((IntegerLiteral) constant).value;
+        if (constant instanceof NumberLiteral) return ((NumberLiteral) constant).value;
+        if (constant instanceof BooleanLiteral) return ((BooleanLiteral) constant).value;
+        return ((StringLiteral) constant).value;
+    }
+
+    // Counts how many statements write each slot, anywhere in the program
+    private final class DefinitionCounter implements StatementVisitor<Void> {
+        void countAll(List<Statement> statements) {
+            for (Statement statement : statements) {
+                statement.accept(this);
+            }
+        }
+
+        @Override
+        public Void visitVariableDeclaration(VariableDeclaration statement) {
+            for (VariableDeclaration.Declarator declarator : statement.declarators) {
+                definitions[declarator.slot]++;
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitAssignment(Assignment statement) {
+            for (int slot : statement.slots) {
+                definitions[slot]++;
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitPrintStatement(PrintStatement statement) {
+            return null;
+        }
+
+        @Override
+        public Void visitInputStatement(InputStatement statement) {
+            for (int slot : statement.slots) {
+                definitions[slot]++;
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitIfStatement(IfStatement statement) {
+            for (IfStatement.Branch branch : statement.branches) {
+                countAll(branch.body);
+            }
+            if (statement.otherwise != null) {
+                countAll(statement.otherwise);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitSwitchStatement(SwitchStatement statement) {
+            for (List<Statement> body : statement.bodies) {
+                countAll(body);
+            }
+            if (statement.otherwise != null) {
+                countAll(statement.otherwise);
+            }
+            return null;
+        }
+    }
+}
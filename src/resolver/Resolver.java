@@ -0,0 +1,178 @@
+package resolver;
+
+import ast.*;
+
+import java.util.*;
+import ErrorHandler.ErrorHandler;
+
+// Binds every variable to a fixed frame slot and its declared type. Declarations are visible
+// from the point they appear onwards (blocks do not open a new scope), so an undefined
+// variable is reported here, before anything runs. Returns a new, resolved Program.
+public class Resolver implements StatementVisitor<Statement>, ExpressionVisitor<Expression> {
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> slotNames = new ArrayList<>();
+    private final List<Type> slotTypes = new ArrayList<>();
+    private Program layout;  // no statements, just the slots so far; null when a slot is added
+
+    public Program resolve(Program program) {
+        List<Statement> statements = resolveAll(program.statements);
+        return new Program(statements, slotNames.toArray(new String[0]), slotTypes.toArray(new Type[0]));
+    }
+
+    // Resolves one more top-level statement of a program that is being run as it is parsed,
+    // against the declarations seen so far. The result holds just that statement, with the
+    // frame layout up to and including it; slots already handed out never change.
+    public Program resolveNext(Statement statement) {
+        Statement resolved = statement.accept(this);
+        if (layout == null) {
+            layout = new Program(List.of(), slotNames.toArray(new String[0]), slotTypes.toArray(new Type[0]));
+        }
+        return new Program(List.of(resolved), layout.slotNames, layout.slotTypes);
+    }
+
+    private List<Statement> resolveAll(List<Statement> statements) {
+        List<Statement> resolved = new ArrayList<>(statements.size());
+        for (Statement statement : statements) {
+            resolved.add(statement.accept(this));
+        }
+        return resolved;
+    }
+
+    @Override
+    public Statement visitVariableDeclaration(VariableDeclaration statement) {
+        List<VariableDeclaration.Declarator> declarators = new ArrayList<>();
+
+        for (VariableDeclaration.Declarator declarator : statement.declarators) {
+            // The initializer is resolved first: MUGNA NUMERO x = x needs an earlier x
+            Expression initializer = declarator.initializer == null ? null : declarator.initializer.accept(this);
+            int slot = declare(declarator.name, statement.type);
+            declarators.add(new VariableDeclaration.Declarator(declarator.name, slot, initializer));
+        }
+        return new VariableDeclaration(statement.type, declarators);
+    }
+
+    @Override
+    public Statement visitAssignment(Assignment statement) {
+        int[] targets = new int[statement.targets.size()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = lookup(statement.targets.get(i));
+        }
+
+        // The value is computed for the innermost target and copied outwards
+        Type type = slotTypes.get(targets[targets.length - 1]);
+        for (int target : targets) {
+            if (slotTypes.get(target) != type) {
+                ErrorHandler.handleTypeMismatchInAssignment();
+            }
+        }
+        return new Assignment(statement.targets, targets, type, statement.value.accept(this));
+    }
+
+    @Override
+    public Statement visitPrintStatement(PrintStatement statement) {
+        List<PrintStatement.Segment> segments = new ArrayList<>();
+
+        for (PrintStatement.Segment segment : statement.segments) {
+            switch (segment.kind) {
+                case VARIABLE:
+                    segments.add(PrintStatement.Segment.variable((Variable) segment.expression.accept(this)));
+                    break;
+                case EXPRESSION:
+                    segments.add(PrintStatement.Segment.expression(segment.expression.accept(this)));
+                    break;
+                default:
+                    segments.add(segment);
+                    break;
+            }
+        }
+        return new PrintStatement(segments);
+    }
+
+    @Override
+    public Statement visitInputStatement(InputStatement statement) {
+        int[] targets = new int[statement.names.size()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = lookup(statement.names.get(i));
+        }
+        return new InputStatement(statement.names, targets);
+    }
+
+    @Override
+    public Statement visitIfStatement(IfStatement statement) {
+        List<IfStatement.Branch> branches = new ArrayList<>();
+        for (IfStatement.Branch branch : statement.branches) {
+            branches.add(new IfStatement.Branch(branch.condition.accept(this), resolveAll(branch.body)));
+        }
+        List<Statement> otherwise = statement.otherwise == null ? null : resolveAll(statement.otherwise);
+        return new IfStatement(branches, otherwise);
+    }
+
+    @Override
+    public Statement visitSwitchStatement(SwitchStatement statement) {
+        List<List<Statement>> bodies = new ArrayList<>();
+        for (List<Statement> body : statement.bodies) {
+            bodies.add(resolveAll(body));
+        }
+        List<Statement> otherwise = statement.otherwise == null ? null : resolveAll(statement.otherwise);
+        return new SwitchStatement((Variable) statement.selector.accept(this), statement.keys, statement.arms,
+                bodies, otherwise);
+    }
+
+    @Override
+    public Expression visitIntegerLiteral(IntegerLiteral expression) {
+        return expression;
+    }
+
+    @Override
+    public Expression visitNumberLiteral(NumberLiteral expression) {
+        return expression;
+    }
+
+    @Override
+    public Expression visitBooleanLiteral(BooleanLiteral expression) {
+        return expression;
+    }
+
+    @Override
+    public Expression visitStringLiteral(StringLiteral expression) {
+        return expression;
+    }
+
+    @Override
+    public Expression visitVariable(Variable expression) {
+        int slot = lookup(expression.name);
+        return new Variable(expression.name, slot, slotTypes.get(slot));
+    }
+
+    @Override
+    public Expression visitUnaryExpression(UnaryExpression expression) {
+        return new UnaryExpression(expression.operator, expression.operand.accept(this));
+    }
+
+    @Override
+    public Expression visitBinaryExpression(BinaryExpression expression) {
+        return new BinaryExpression(expression.operator, expression.left.accept(this), expression.right.accept(this));
+    }
+
+    private int declare(String name, Type type) {
+        Integer slot = slots.get(name);
+        if (slot != null && slotTypes.get(slot) == type) {
+            return slot;
+        }
+        // A redeclaration with a different type gets a fresh slot for the code that follows
+        slot = slotNames.size();
+        slotNames.add(name);
+        slotTypes.add(type);
+        slots.put(name, slot);
+        layout = null;
+        return slot;
+    }
+
+    private int lookup(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            ErrorHandler.handleUndefinedVariable(name);
+        }
+        return slot;
+    }
+}
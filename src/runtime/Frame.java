@@ -0,0 +1,48 @@
+package runtime;
+
+import ast.Type;
+
+import java.util.Arrays;
+
+// Unboxed variable storage. A slot lives in the array matching its declared type and the
+// other arrays are unused at that index, so reads and writes never allocate.
+public final class Frame {
+    public final Type[] types;
+    public final long[] integers;
+    public final double[] numbers;
+    public final boolean[] booleans;
+    public final String[] strings;
+
+    public Frame(Type[] types) {
+        this.types = types;
+        this.integers = new long[types.length];
+        this.numbers = new double[types.length];
+        this.booleans = new boolean[types.length];
+        this.strings = new String[types.length];
+        reset();
+    }
+
+    // A frame for a layout that extends this one by more slots, with the variables so far
+    // carried over; used when a program runs while it is still being parsed
+    public Frame extend(Type[] layout) {
+        if (layout.length == types.length) {
+            return this;
+        }
+        Frame frame = new Frame(layout);
+        System.arraycopy(integers, 0, frame.integers, 0, integers.length);
+        System.arraycopy(numbers, 0, frame.numbers, 0, numbers.length);
+        System.arraycopy(booleans, 0, frame.booleans, 0, booleans.length);
+        System.arraycopy(strings, 0, frame.strings, 0, strings.length);
+        return frame;
+    }
+
+    // Puts every variable back to its initial value
+    public void reset() {
+        Arrays.fill(integers, 0);
+        Arrays.fill(numbers, 0);
+        Arrays.fill(booleans, false);
+        for (int slot = 0; slot < types.length; slot++) {
+            strings[slot] = Kind.of(types[slot]) == Kind.STRING ? "" : null;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package runtime;
+
+import ErrorHandler.ErrorHandler;
+import ast.Type;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+// Where DAWAT reads its values from. Lines are read as bytes into a reusable buffer, the
+// comma separated fields are located in place, and NUMERO, TIPIK and TINUOD values are
+// parsed straight from those bytes into the variable slots. Only LETRA values, and numbers
+// too unusual for the fast paths, become Strings.
+public final class Input implements Closeable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    // Powers of ten that are exact doubles
+    private static final double[] POWERS = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ReadableByteChannel source;
+    private final ByteBuffer buffer;
+    private byte[] line = new byte[256];
+    private int length;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int fields;
+    private long lines;
+
+    public Input(ReadableByteChannel source) {
+        this(source, DEFAULT_CAPACITY);
+    }
+
+    public Input(ReadableByteChannel source, int capacity) {
+        this.source = source;
+        this.buffer = ByteBuffer.allocate(Math.max(capacity, 16));
+        buffer.flip();
+    }
+
+    public static Input standard() {
+        return new Input(Channels.newChannel(System.in));
+    }
+
+    public static Input open(Path path) throws IOException {
+        return new Input(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    // Lines read so far
+    public long lines() {
+        return lines;
+    }
+
+    // Whether any input is left, e.g. another record to run the program on
+    public boolean hasMore() {
+        try {
+            while (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = source.read(buffer);
+                buffer.flip();
+                if (read < 0) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    // Reads one DAWAT line into slots of frame; names are used in error messages
+    public void read(Frame frame, int[] slots, String[] names) {
+        readLine(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            Type type = frame.types[slot];
+            switch (Kind.of(type)) {
+                case INTEGER:
+                    frame.integers[slot] = integerField(i, names[i]);
+                    break;
+                case NUMBER:
+                    frame.numbers[slot] = numberField(i, names[i]);
+                    break;
+                case BOOLEAN:
+                    frame.booleans[slot] = booleanField(i);
+                    break;
+                default:
+                    frame.strings[slot] = stringField(i);
+                    break;
+            }
+        }
+    }
+
+    // Reads the next line and splits it at commas, as String.split(",") would: trailing
+    // empty fields are dropped. The end of input reads as an empty line.
+    public void readLine(int expected) {
+        lines++;
+        length = 0;
+        try {
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    buffer.clear();
+                    int read = source.read(buffer);
+                    buffer.flip();
+                    if (read < 0) {
+                        break;
+                    }
+                    continue;
+                }
+                byte b = buffer.get();
+                if (b == '\n') {
+                    break;
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+
+        fields = 0;
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || line[i] == ',') {
+                if (fields == starts.length) {
+                    starts = Arrays.copyOf(starts, fields * 2);
+                    ends = Arrays.copyOf(ends, fields * 2);
+                }
+                starts[fields] = start;
+                ends[fields] = i;
+                fields++;
+                start = i + 1;
+            }
+        }
+        if (length > 0) {
+            while (fields > 0 && starts[fields - 1] == ends[fields - 1]) {
+                fields--;
+            }
+        }
+
+        if (fields < expected) {
+            ErrorHandler.handleInsufficientInputValues(expected, fields);
+        }
+    }
+
+    public long integerField(int index, String name) {
+        int from = trimStart(index);
+        int to = trimEnd(index, from);
+        int i = from;
+        boolean negative = false;
+        if (i < to && (line[i] == '-' || line[i] == '+')) {
+            negative = line[i] == '-';
+            i++;
+        }
+        if (i < to && to - i <= 18) {
+            long value = 0;
+            for (; i < to && line[i] >= '0' && line[i] <= '9'; i++) {
+                value = value * 10 + (line[i] - '0');
+            }
+            if (i == to) {
+                return negative ? -value : value;
+            }
+        }
+        // Long digit runs and anything unusual take the JDK's path
+        String text = text(from, to);
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            ErrorHandler.handleInvalidInputFormat(name, Type.NUMERO.name(), text);
+            return 0;
+        }
+    }
+
+    public double numberField(int index, String name) {
+        int from = trimStart(index);
+        int to = trimEnd(index, from);
+        int i = from;
+        boolean negative = false;
+        if (i < to && (line[i] == '-' || line[i] == '+')) {
+            negative = line[i] == '-';
+            i++;
+        }
+        // Up to 15 significant digits divided by an exact power of ten rounds correctly
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; i < to; i++) {
+            byte b = line[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (point) scale++;
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (i == to && digits > 0 && digits <= 15 && scale < POWERS.length) {
+            double value = mantissa / POWERS[scale];
+            return negative ? -value : value;
+        }
+        String text = text(from, to);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            ErrorHandler.handleInvalidInputFormat(name, Type.TIPIK.name(), text);
+            return 0;
+        }
+    }
+
+    public boolean booleanField(int index) {
+        int from = trimStart(index);
+        int to = trimEnd(index, from);
+        if (matches(from, to, "OO")) {
+            return true;
+        }
+        if (matches(from, to, "DILI")) {
+            return false;
+        }
+        ErrorHandler.handleInvalidBooleanInput(text(from, to));
+        return false;
+    }
+
+    public String stringField(int index) {
+        int from = trimStart(index);
+        return text(from, trimEnd(index, from));
+    }
+
+    // Field bounds without the characters String.trim() would remove
+    private int trimStart(int index) {
+        int i = starts[index];
+        while (i < ends[index] && (line[i] & 0xFF) <= ' ') i++;
+        return i;
+    }
+
+    private int trimEnd(int index, int from) {
+        int i = ends[index];
+        while (i > from && (line[i - 1] & 0xFF) <= ' ') i--;
+        return i;
+    }
+
+    private boolean matches(int from, int to, String word) {
+        if (to - from != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            int b = line[from + i];
+            if (b != word.charAt(i) && b != Character.toLowerCase(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String text(int from, int to) {
+        return new String(line, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -0,0 +1,59 @@
+package runtime;
+
+import ast.*;
+
+// How a value is represented at run time: NUMERO as a long, TIPIK as a double
+public enum Kind {
+    INTEGER,
+    NUMBER,
+    BOOLEAN,
+    STRING;
+
+    private static final Kind[] VALUES = values();
+
+    public static Kind of(Type type) {
+        if (type == Type.NUMERO) return INTEGER;
+        if (type == Type.TIPIK) return NUMBER;
+        if (type == Type.TINUOD) return BOOLEAN;
+        return STRING;
+    }
+
+    // Static kind of an expression, known without evaluating it. NUMERO / NUMERO is TIPIK
+    // division here: it only truncates when the result goes into a NUMERO (see isIntegral).
+    public static Kind of(Expression expression) {
+        if (expression instanceof IntegerLiteral) return INTEGER;
+        if (expression instanceof NumberLiteral) return NUMBER;
+        if (expression instanceof BooleanLiteral) return BOOLEAN;
+        if (expression instanceof StringLiteral) return STRING;
+        if (expression instanceof Variable) return of(((Variable) expression).type);
+        if (expression instanceof UnaryExpression) {
+            UnaryExpression unary = (UnaryExpression) expression;
+            if (unary.operator == Operator.NOT) return BOOLEAN;
+            return of(unary.operand) == INTEGER ? INTEGER : NUMBER;
+        }
+        BinaryExpression binary = (BinaryExpression) expression;
+        if (!binary.operator.isArithmetic()) return BOOLEAN;
+        if (binary.operator == Operator.DIV) return NUMBER;
+        return of(binary.left) == INTEGER && of(binary.right) == INTEGER ? INTEGER : NUMBER;
+    }
+
+    // Whether an expression is NUMERO arithmetic all the way down. Stored into a NUMERO, such
+    // an expression is computed exactly in 64-bit integers, with / as truncating division.
+    public static boolean isIntegral(Expression expression) {
+        if (expression instanceof IntegerLiteral) return true;
+        if (expression instanceof Variable) return ((Variable) expression).type == Type.NUMERO;
+        if (expression instanceof UnaryExpression) {
+            UnaryExpression unary = (UnaryExpression) expression;
+            return unary.operator == Operator.NEG && isIntegral(unary.operand);
+        }
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            return binary.operator.isArithmetic() && isIntegral(binary.left) && isIntegral(binary.right);
+        }
+        return false;
+    }
+
+    public static Kind of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,174 @@
+package runtime;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+// Where IPAKITA output goes. Text is encoded to UTF-8 straight into a large buffer that is
+// written to the target channel only when it fills, before a DAWAT prompt and when the
+// program ends, instead of one synchronized System.out call per line.
+public final class Output {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final WritableByteChannel target;
+    private final ByteBuffer buffer;
+    private int column;  // characters written since the last newline
+    private boolean batched;
+    private final StringBuilder scratch = new StringBuilder();
+    private final byte[] digits = new byte[20];
+
+    public Output(WritableByteChannel target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    public Output(WritableByteChannel target, int capacity) {
+        this.target = target;
+        this.buffer = ByteBuffer.allocate(Math.max(capacity, 16));
+    }
+
+    // Buffered output to whatever System.out is when the program starts
+    public static Output standard() {
+        return new Output(Channels.newChannel(System.out));
+    }
+
+    public void print(CharSequence text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (!buffer.hasRemaining()) drain();
+                buffer.put((byte) c);
+            } else {
+                encode(c, i + 1 < length ? text.charAt(i + 1) : 0);
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    i++;
+                }
+            }
+        }
+        column += length;
+    }
+
+    // Writes the digits straight into the buffer
+    public void print(long value) {
+        if (value == Long.MIN_VALUE) {
+            print("-9223372036854775808");
+            return;
+        }
+        int start = digits.length;
+        long magnitude = Math.abs(value);
+        do {
+            digits[--start] = (byte) ('0' + magnitude % 10);
+            magnitude /= 10;
+        } while (magnitude != 0);
+        if (value < 0) {
+            digits[--start] = '-';
+        }
+
+        if (buffer.remaining() < digits.length) drain();
+        buffer.put(digits, start, digits.length - start);
+        column += digits.length - start;
+    }
+
+    // Shortest round-trip form, as Double.toString; StringBuilder formats it without a String
+    public void print(double value) {
+        scratch.setLength(0);
+        scratch.append(value);
+        print(scratch);
+    }
+
+    // A TIPIK result inside an IPAKITA expression, see Values.appendNumber
+    public void printNumber(double value) {
+        if (value == Math.floor(value) && Math.abs(value) < 0x1p63) {
+            print((long) value);
+        } else {
+            scratch.setLength(0);
+            Values.appendNumber(scratch, value);
+            print(scratch);
+        }
+    }
+
+    public void print(boolean value) {
+        print(value ? "OO" : "DILI");
+    }
+
+    public void newline() {
+        if (!buffer.hasRemaining()) drain();
+        buffer.put((byte) '\n');
+        column = 0;
+    }
+
+    // Ends the current line unless nothing has been written on it
+    public void endLine() {
+        if (column > 0) {
+            newline();
+        }
+    }
+
+    // Keeps output buffered across many runs of a program, as in record streaming: DAWAT
+    // prompts are left out and nothing is flushed until the caller calls flush()
+    public void batch() {
+        batched = true;
+    }
+
+    // Writes a DAWAT prompt and flushes so it is visible before input is read. The prompt
+    // does not count towards the current line.
+    public void prompt(String text) {
+        if (batched) {
+            return;
+        }
+        print(text);
+        column = 0;
+        flush();
+    }
+
+    // Called by every engine when a run ends, normally or not
+    public void endOfRun() {
+        if (!batched) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        drain();
+        if (target instanceof Flushable) {
+            try {
+                ((Flushable) target).flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private void encode(char c, char next) {
+        if (buffer.remaining() < 4) drain();
+        if (c < 0x800) {
+            buffer.put((byte) (0xC0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c) && Character.isLowSurrogate(next)) {
+            int codePoint = Character.toCodePoint(c, next);
+            buffer.put((byte) (0xF0 | (codePoint >> 18)));
+            buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+        } else if (Character.isSurrogate(c)) {
+            buffer.put((byte) '?');  // unpaired surrogate, as the JDK encoder writes it
+        } else {
+            buffer.put((byte) (0xE0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package runtime;
+
+import ast.Operator;
+import ast.Type;
+
+import java.math.BigDecimal;
+import ErrorHandler.ErrorHandler;
+
+// Value conversions and I/O formatting shared by the tree-walking interpreter and the VM
+public final class Values {
+    private Values() {
+    }
+
+    // A TIPIK value inside an IPAKITA expression: whole numbers print without a fraction, at
+    // any magnitude, everything else in Double.toString form. Output.printNumber is the same
+    // rule writing straight into the output buffer.
+    public static void appendNumber(StringBuilder output, double value) {
+        if (Double.isInfinite(value) || value != Math.floor(value)) {
+            output.append(value);
+        } else if (Math.abs(value) < 0x1p63) {
+            output.append((long) value);
+        } else {
+            output.append(BigDecimal.valueOf(value).toBigInteger());  // digits of the shortest form
+        }
+    }
+
+    public static double toNumber(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            ErrorHandler.handleCannotConvertStringToNumber(value);
+            return 0;
+        }
+    }
+
+    // NUMERO from text; a decimal string is truncated like any other TIPIK to NUMERO conversion
+    public static long toInteger(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return toInteger(toNumber(value));
+        }
+    }
+
+    public static long toInteger(double value) {
+        if (Double.isNaN(value) || value < -0x1p63 || value >= 0x1p63) {
+            ErrorHandler.handleIntegerOverflow();
+        }
+        return (long) value;
+    }
+
+    // Checked NUMERO arithmetic: results that do not fit in 64 bits are errors, not wrapped values
+    public static long add(long a, long b) {
+        long result = a + b;
+        if (((a ^ result) & (b ^ result)) < 0) ErrorHandler.handleIntegerOverflow();
+        return result;
+    }
+
+    public static long subtract(long a, long b) {
+        long result = a - b;
+        if (((a ^ b) & (a ^ result)) < 0) ErrorHandler.handleIntegerOverflow();
+        return result;
+    }
+
+    public static long multiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long result = a * b;
+        if (high != (result >> 63)) ErrorHandler.handleIntegerOverflow();
+        return result;
+    }
+
+    // Truncating division, exact for every pair of longs; Long.MIN_VALUE / -1 is the one overflow
+    public static long divide(long a, long b) {
+        if (b == 0) ErrorHandler.handleDivisionByZero();
+        if (a == Long.MIN_VALUE && b == -1) ErrorHandler.handleIntegerOverflow();
+        return a / b;
+    }
+
+    public static long remainder(long a, long b) {
+        if (b == 0) ErrorHandler.handleDivisionByZero();
+        return b == -1 ? 0 : a % b;
+    }
+
+    public static long negate(long a) {
+        if (a == Long.MIN_VALUE) ErrorHandler.handleIntegerOverflow();
+        return -a;
+    }
+
+    public static double divide(double a, double b) {
+        if (b == 0) ErrorHandler.handleDivisionByZero();
+        return a / b;
+    }
+
+    public static double remainder(double a, double b) {
+        if (b == 0) ErrorHandler.handleDivisionByZero();
+        return a % b;
+    }
+
+    public static boolean toBoolean(String value) {
+        if (value.equals("OO")) return true;
+        if (value.equals("DILI")) return false;
+        return !value.isEmpty();
+    }
+
+    public static boolean compareIntegers(Operator op, long leftNum, long rightNum) {
+        switch (op) {
+            case LT: return leftNum < rightNum;
+            case GT: return leftNum > rightNum;
+            case LE: return leftNum <= rightNum;
+            case GE: return leftNum >= rightNum;
+            case EQ: return leftNum == rightNum;
+            case NE: return leftNum != rightNum;
+            default:
+                ErrorHandler.handleUnknownOperator(op.symbol);
+                return false;
+        }
+    }
+
+    public static boolean compareNumbers(Operator op, double leftNum, double rightNum) {
+        switch (op) {
+            case LT: return leftNum < rightNum;
+            case GT: return leftNum > rightNum;
+            case LE: return leftNum <= rightNum;
+            case GE: return leftNum >= rightNum;
+            case EQ: return leftNum == rightNum;
+            case NE: return leftNum != rightNum;
+            default:
+                ErrorHandler.handleUnknownOperator(op.symbol);
+                return false;
+        }
+    }
+
+    // Comparison between operands of different types: numerically when both sides
+    // can be read as numbers, otherwise as strings
+    public static boolean compareMixed(Operator op, Object leftVal, Object rightVal) {
+        try {
+            return compareNumbers(op, toComparableNumber(leftVal), toComparableNumber(rightVal));
+        } catch (NumberFormatException e) {
+            int order = String.valueOf(leftVal).compareTo(String.valueOf(rightVal));
+            switch (op) {
+                case LT: return order < 0;
+                case GT: return order > 0;
+                case LE: return order <= 0;
+                case GE: return order >= 0;
+                case EQ: return order == 0;
+                default: return order != 0;
+            }
+        }
+    }
+
+    private static double toComparableNumber(Object value) {
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        if (value instanceof Boolean) return ((Boolean) value) ? 1.0 : 0.0;
+        return Double.parseDouble(String.valueOf(value));
+    }
+}
@@ -0,0 +1,20 @@
+package vm;
+
+import ast.Type;
+
+// A compiled Bisaya++ program: a flat instruction stream, its constant pool and the variable slots
+public final class Chunk {
+    public final int[] code;
+    public final Object[] constants;
+    public final String[] slotNames;
+    public final Type[] slotTypes;
+    public final int maxStack;
+
+    public Chunk(int[] code, Object[] constants, String[] slotNames, Type[] slotTypes, int maxStack) {
+        this.code = code;
+        this.constants = constants;
+        this.slotNames = slotNames;
+        this.slotTypes = slotTypes;
+        this.maxStack = maxStack;
+    }
+}
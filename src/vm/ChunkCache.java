@@ -0,0 +1,298 @@
+package vm;
+
+import ast.Type;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Compiled chunks kept on disk between runs, so an unchanged program skips lexing, parsing
+// and compiling. Entries are keyed by a SHA-256 of the source together with a stamp of the
+// compiler build and the optimizer setting, so an edited source or a rebuilt compiler simply
+// misses. Hits are read through a memory mapping and touched; once the directory grows past
+// its cap the least recently used entries are deleted.
+public final class ChunkCache {
+    private static final int MAGIC = 0x42534331; // "BSC1"
+    private static final String SUFFIX = ".bsc";
+
+    private static final byte LONG = 1, DOUBLE = 2, STRING = 3, LONGS = 4, INTS = 5, STRINGS = 6;
+
+    // The build this class was loaded from, stamped once per JVM
+    private static final byte[] BUILD = buildHash();
+
+    private final Path directory;
+    private final long maxBytes;
+
+    public ChunkCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    // ~/.cache/bisaya capped at 64 MB, overridable with -Dbisaya.cache.dir and -Dbisaya.cache.max
+    public static ChunkCache standard() {
+        String dir = System.getProperty("bisaya.cache.dir",
+                Paths.get(System.getProperty("user.home"), ".cache", "bisaya").toString());
+        return new ChunkCache(Paths.get(dir), Long.getLong("bisaya.cache.max", 64L << 20));
+    }
+
+    public static String key(Path source, boolean optimized) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            return key(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), optimized);
+        }
+    }
+
+    public static String key(ByteBuffer source, boolean optimized) {
+        MessageDigest digest = sha256();
+        digest.update(BUILD);
+        digest.update(("/" + (optimized ? "O" : "-") + "/").getBytes(StandardCharsets.UTF_8));
+        digest.update(source);
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    // A stamp of the jar or class directory ChunkCache was loaded from: the name, size and
+    // modification time of each class file, or of the jar. Nothing is read, so it costs a
+    // directory listing, yet any rebuild of the front end, the optimizer, the compiler or the
+    // instruction set changes every key. When the build cannot be listed the stamp is random
+    // and nothing cached is ever reused.
+    private static byte[] buildHash() {
+        MessageDigest digest = sha256();
+        try {
+            Path root = Paths.get(ChunkCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            List<Path> files;
+            if (Files.isDirectory(root)) {
+                try (Stream<Path> walk = Files.walk(root)) {
+                    files = walk.filter(file -> file.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+                }
+            } else {
+                files = List.of(root);
+            }
+            for (Path file : files) {
+                digest.update((root.relativize(file) + "/" + Files.size(file) + "/"
+                        + Files.getLastModifiedTime(file).toMillis() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            digest.update(UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The cached chunk, or null on a miss. A damaged entry is deleted and counts as a miss.
+    public Chunk load(String key) {
+        Path file = directory.resolve(key + SUFFIX);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Chunk chunk = read(bytes);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return chunk;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Another run may be replacing it
+            }
+            return null;
+        }
+    }
+
+    // Failing to write the cache never fails the run
+    public void store(String key, Chunk chunk) {
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temporary, write(chunk));
+            Files.move(temporary, directory.resolve(key + SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temporary = null;
+            evict();
+        } catch (IOException | UncheckedIOException e) {
+            // Read-only or full disk: run uncached
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // Nothing more to do; it is only a stray file
+                }
+            }
+        }
+    }
+
+    private void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.toString().endsWith(SUFFIX)).forEach(entries::add);
+        }
+        Map<Path, FileTime> used = new HashMap<>();
+        long total = 0;
+        for (Path entry : entries) {
+            used.put(entry, Files.getLastModifiedTime(entry));
+            total += Files.size(entry);
+        }
+        entries.sort(Comparator.comparing(used::get));
+        for (Path entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            total -= Files.size(entry);
+            Files.deleteIfExists(entry);
+        }
+    }
+
+    static byte[] write(Chunk chunk) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(chunk.maxStack);
+
+        out.writeInt(chunk.code.length);
+        for (int word : chunk.code) {
+            out.writeInt(word);
+        }
+
+        out.writeInt(chunk.constants.length);
+        for (Object constant : chunk.constants) {
+            if (constant instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) constant);
+            } else if (constant instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) constant);
+            } else if (constant instanceof String) {
+                out.writeByte(STRING);
+                writeString(out, (String) constant);
+            } else if (constant instanceof long[]) {
+                long[] values = (long[]) constant;
+                out.writeByte(LONGS);
+                out.writeInt(values.length);
+                for (long value : values) {
+                    out.writeLong(value);
+                }
+            } else if (constant instanceof int[]) {
+                int[] values = (int[]) constant;
+                out.writeByte(INTS);
+                out.writeInt(values.length);
+                for (int value : values) {
+                    out.writeInt(value);
+                }
+            } else if (constant instanceof String[]) {
+                String[] values = (String[]) constant;
+                out.writeByte(STRINGS);
+                out.writeInt(values.length);
+                for (String value : values) {
+                    writeString(out, value);
+                }
+            } else {
+                throw new IllegalArgumentException("Cannot cache constant " + constant);
+            }
+        }
+
+        out.writeInt(chunk.slotNames.length);
+        for (int slot = 0; slot < chunk.slotNames.length; slot++) {
+            writeString(out, chunk.slotNames[slot]);
+            out.writeByte(chunk.slotTypes[slot].ordinal());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static Chunk read(ByteBuffer in) {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IllegalStateException("Not a current cache entry");
+            }
+            int maxStack = in.getInt();
+
+            int[] code = new int[in.getInt()];
+            in.asIntBuffer().get(code);
+            in.position(in.position() + code.length * 4);
+
+            Object[] constants = new Object[in.getInt()];
+            for (int i = 0; i < constants.length; i++) {
+                switch (in.get()) {
+                    case LONG:
+                        constants[i] = in.getLong();
+                        break;
+                    case DOUBLE:
+                        constants[i] = in.getDouble();
+                        break;
+                    case STRING:
+                        constants[i] = readString(in);
+                        break;
+                    case LONGS:
+                        long[] values = new long[in.getInt()];
+                        in.asLongBuffer().get(values);
+                        in.position(in.position() + values.length * 8);
+                        constants[i] = values;
+                        break;
+                    case INTS:
+                        int[] ints = new int[in.getInt()];
+                        in.asIntBuffer().get(ints);
+                        in.position(in.position() + ints.length * 4);
+                        constants[i] = ints;
+                        break;
+                    case STRINGS:
+                        String[] strings = new String[in.getInt()];
+                        for (int j = 0; j < strings.length; j++) {
+                            strings[j] = readString(in);
+                        }
+                        constants[i] = strings;
+                        break;
+                    default:
+                        throw new IllegalStateException("Bad constant tag");
+                }
+            }
+
+            Type[] types = Type.values();
+            String[] slotNames = new String[in.getInt()];
+            Type[] slotTypes = new Type[slotNames.length];
+            for (int slot = 0; slot < slotNames.length; slot++) {
+                slotNames[slot] = readString(in);
+                slotTypes[slot] = types[in.get()];
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalStateException("Trailing bytes");
+            }
+            return new Chunk(code, constants, slotNames, slotTypes, maxStack);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("Truncated cache entry", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,454 @@
+package vm;
+
+import ast.*;
+import runtime.Kind;
+
+import java.util.*;
+import ErrorHandler.ErrorHandler;
+
+// Lowers a resolved Program into a Chunk. Every variable already has a slot and a type,
+// so every operand type is known here and the VM only executes typed instructions.
+public class Compiler implements StatementVisitor<Void>, ExpressionVisitor<Kind> {
+    private int[] code = new int[256];
+    private int size;
+    private int depth;
+    private int maxDepth;
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndex = new HashMap<>();
+    private boolean integral;  // compiling NUMERO arithmetic whose result goes into a NUMERO
+
+    public Chunk compile(Program program) {
+        for (Statement statement : program.statements) {
+            statement.accept(this);
+        }
+        emit(OpCode.HALT);
+
+        return new Chunk(Arrays.copyOf(code, size), constants.toArray(),
+                program.slotNames, program.slotTypes, maxDepth);
+    }
+
+    // A single expression as a standalone chunk that leaves its value, converted to `kind`,
+    // as the only entry on that kind's stack
+    public Chunk compileExpression(Expression expression, Kind kind, Program program) {
+        compileAs(kind, expression);
+        emit(OpCode.HALT);
+
+        return new Chunk(Arrays.copyOf(code, size), constants.toArray(),
+                program.slotNames, program.slotTypes, maxDepth);
+    }
+
+    @Override
+    public Void visitVariableDeclaration(VariableDeclaration statement) {
+        Kind kind = Kind.of(statement.type);
+
+        for (VariableDeclaration.Declarator declarator : statement.declarators) {
+            if (declarator.initializer != null) {
+                compileAs(kind, declarator.initializer);
+            } else if (kind == Kind.INTEGER) {
+                emit(OpCode.LCONST, constant(0L));
+            } else if (kind == Kind.NUMBER) {
+                emit(OpCode.NCONST, constant(0.0));
+            } else if (kind == Kind.BOOLEAN) {
+                emit(OpCode.FALSE);
+            } else {
+                emit(OpCode.SCONST, constant(""));
+            }
+            emitStore(kind, declarator.slot);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitAssignment(Assignment statement) {
+        int[] targets = statement.slots;
+        Kind kind = Kind.of(statement.type);
+
+        // The value is computed for the innermost target and copied outwards
+        compileAs(kind, statement.value);
+        for (int i = targets.length - 1; i > 0; i--) {
+            switch (kind) {
+                case INTEGER: emit(OpCode.LDUP); break;
+                case NUMBER: emit(OpCode.NDUP); break;
+                case BOOLEAN: emit(OpCode.BDUP); break;
+                default: emit(OpCode.SDUP); break;
+            }
+            emitStore(kind, targets[i]);
+        }
+        emitStore(kind, targets[0]);
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStatement(PrintStatement statement) {
+        for (PrintStatement.Segment segment : statement.segments) {
+            switch (segment.kind) {
+                case TEXT:
+                    emit(OpCode.EMIT_TEXT, constant(segment.text));
+                    break;
+                case NEWLINE:
+                    emit(OpCode.EMIT_LINE);
+                    break;
+                case VARIABLE: {
+                    Variable variable = (Variable) segment.expression;
+                    variable.accept(this);
+                    switch (variable.type) {
+                        case NUMERO: emit(OpCode.EMIT_NUMERO); break;
+                        case TIPIK: emit(OpCode.EMIT_TIPIK); break;
+                        case TINUOD: emit(OpCode.EMIT_TINUOD); break;
+                        default: emit(OpCode.EMIT_LETRA); break;
+                    }
+                    break;
+                }
+                case EXPRESSION:
+                    if (Kind.of(segment.expression) == Kind.INTEGER) {
+                        segment.expression.accept(this);
+                        emit(OpCode.EMIT_NUMERO);
+                    } else {
+                        compileAs(Kind.NUMBER, segment.expression);
+                        emit(OpCode.EMIT_NUMBER);
+                    }
+                    break;
+            }
+        }
+        emit(OpCode.EMIT_END);
+        return null;
+    }
+
+    @Override
+    public Void visitInputStatement(InputStatement statement) {
+        // The slots and the names for error messages are built once here, not per DAWAT
+        emit(OpCode.INPUT, constant(statement.slots.clone()));
+        emitOperand(constant(statement.fieldNames.clone()));
+        return null;
+    }
+
+    @Override
+    public Void visitIfStatement(IfStatement statement) {
+        List<Integer> exits = new ArrayList<>();
+
+        for (IfStatement.Branch branch : statement.branches) {
+            compileAs(Kind.BOOLEAN, branch.condition);
+            int skip = emitJump(OpCode.JUMP_IF_FALSE);
+            for (Statement inner : branch.body) {
+                inner.accept(this);
+            }
+            exits.add(emitJump(OpCode.JUMP));
+            patch(skip);
+        }
+        if (statement.otherwise != null) {
+            for (Statement inner : statement.otherwise) {
+                inner.accept(this);
+            }
+        }
+        for (int exit : exits) {
+            patch(exit);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitSwitchStatement(SwitchStatement statement) {
+        statement.selector.accept(this);
+        emit(OpCode.LSWITCH, constant(statement.keys));
+        int table = size;
+        for (int i = 0; i <= statement.keys.length; i++) {
+            emitOperand(-1); // the default target, then one per key
+        }
+
+        List<Integer> exits = new ArrayList<>();
+        int[] bodyStarts = new int[statement.bodies.size()];
+        for (int arm = 0; arm < bodyStarts.length; arm++) {
+            bodyStarts[arm] = size;
+            for (Statement inner : statement.bodies.get(arm)) {
+                inner.accept(this);
+            }
+            exits.add(emitJump(OpCode.JUMP));
+        }
+        patch(table);
+        if (statement.otherwise != null) {
+            for (Statement inner : statement.otherwise) {
+                inner.accept(this);
+            }
+        }
+        for (int exit : exits) {
+            patch(exit);
+        }
+        for (int i = 0; i < statement.keys.length; i++) {
+            code[table + 1 + i] = bodyStarts[statement.arms[i]];
+        }
+        return null;
+    }
+
+    @Override
+    public Kind visitIntegerLiteral(IntegerLiteral expression) {
+        emit(OpCode.LCONST, constant(expression.value));
+        return Kind.INTEGER;
+    }
+
+    @Override
+    public Kind visitNumberLiteral(NumberLiteral expression) {
+        emit(OpCode.NCONST, constant(expression.value));
+        return Kind.NUMBER;
+    }
+
+    @Override
+    public Kind visitBooleanLiteral(BooleanLiteral expression) {
+        emit(expression.value ? OpCode.TRUE : OpCode.FALSE);
+        return Kind.BOOLEAN;
+    }
+
+    @Override
+    public Kind visitStringLiteral(StringLiteral expression) {
+        emit(OpCode.SCONST, constant(expression.value));
+        return Kind.STRING;
+    }
+
+    @Override
+    public Kind visitVariable(Variable expression) {
+        Kind kind = Kind.of(expression.type);
+        switch (kind) {
+            case INTEGER: emit(OpCode.LLOAD, expression.slot); break;
+            case NUMBER: emit(OpCode.NLOAD, expression.slot); break;
+            case BOOLEAN: emit(OpCode.BLOAD, expression.slot); break;
+            default: emit(OpCode.SLOAD, expression.slot); break;
+        }
+        return kind;
+    }
+
+    @Override
+    public Kind visitUnaryExpression(UnaryExpression expression) {
+        if (expression.operator == Operator.NEG) {
+            if (integral || Kind.of(expression.operand) == Kind.INTEGER) {
+                expression.operand.accept(this);
+                emit(OpCode.LNEG);
+                return Kind.INTEGER;
+            }
+            compileAs(Kind.NUMBER, expression.operand);
+            emit(OpCode.NNEG);
+            return Kind.NUMBER;
+        }
+        compileAs(Kind.BOOLEAN, expression.operand);
+        emit(OpCode.NOT);
+        return Kind.BOOLEAN;
+    }
+
+    @Override
+    public Kind visitBinaryExpression(BinaryExpression expression) {
+        Operator op = expression.operator;
+
+        if (op == Operator.AND || op == Operator.OR) {
+            // Short-circuit: the right operand only runs when it can change the result
+            compileAs(Kind.BOOLEAN, expression.left);
+            int skip = emitJump(OpCode.JUMP_IF_FALSE);
+            if (op == Operator.AND) {
+                compileAs(Kind.BOOLEAN, expression.right);
+            } else {
+                emit(OpCode.TRUE);
+            }
+            int end = emitJump(OpCode.JUMP);
+            patch(skip);
+            depth--;
+            if (op == Operator.AND) {
+                emit(OpCode.FALSE);
+            } else {
+                compileAs(Kind.BOOLEAN, expression.right);
+            }
+            patch(end);
+            return Kind.BOOLEAN;
+        }
+
+        Kind left = Kind.of(expression.left);
+        Kind right = Kind.of(expression.right);
+
+        if (op.isArithmetic()) {
+            // NUMERO with NUMERO stays integral, except that / divides as TIPIK unless the result
+            // goes into a NUMERO; anything else is computed as TIPIK
+            Kind kind = integral || Kind.of(expression) == Kind.INTEGER ? Kind.INTEGER : Kind.NUMBER;
+            compileAs(kind, expression.left);
+            compileAs(kind, expression.right);
+            boolean integral = kind == Kind.INTEGER;
+            switch (op) {
+                case ADD: emit(integral ? OpCode.LADD : OpCode.NADD); break;
+                case SUB: emit(integral ? OpCode.LSUB : OpCode.NSUB); break;
+                case MUL: emit(integral ? OpCode.LMUL : OpCode.NMUL); break;
+                case DIV: emit(integral ? OpCode.LDIV : OpCode.NDIV); break;
+                default: emit(integral ? OpCode.LMOD : OpCode.NMOD); break;
+            }
+            return kind;
+        }
+
+        boolean bothBoolean = left == Kind.BOOLEAN && right == Kind.BOOLEAN;
+        if (left == Kind.INTEGER && right == Kind.INTEGER) {
+            expression.left.accept(this);
+            expression.right.accept(this);
+            switch (op) {
+                case LT: emit(OpCode.LLT); break;
+                case GT: emit(OpCode.LGT); break;
+                case LE: emit(OpCode.LLE); break;
+                case GE: emit(OpCode.LGE); break;
+                case EQ: emit(OpCode.LEQ); break;
+                default: emit(OpCode.LNE); break;
+            }
+        } else if (left != Kind.STRING && right != Kind.STRING && !bothBoolean) {
+            // Mixed numeric kinds compare as TIPIK, TINUOD counting as 1 or 0
+            compileAs(Kind.NUMBER, expression.left);
+            compileAs(Kind.NUMBER, expression.right);
+            switch (op) {
+                case LT: emit(OpCode.NLT); break;
+                case GT: emit(OpCode.NGT); break;
+                case LE: emit(OpCode.NLE); break;
+                case GE: emit(OpCode.NGE); break;
+                case EQ: emit(OpCode.NEQ); break;
+                default: emit(OpCode.NNE); break;
+            }
+        } else if (bothBoolean) {
+            expression.left.accept(this);
+            expression.right.accept(this);
+            if (op == Operator.EQ) {
+                emit(OpCode.BEQ);
+            } else if (op == Operator.NE) {
+                emit(OpCode.BNE);
+            } else {
+                ErrorHandler.handleInvalidOperatorForBooleanComparison(op.symbol);
+            }
+        } else {
+            expression.left.accept(this);
+            expression.right.accept(this);
+            emit(OpCode.CMP, op.ordinal());
+            emitOperand(left.ordinal());
+            emitOperand(right.ordinal());
+        }
+        return Kind.BOOLEAN;
+    }
+
+    private void compileAs(Kind expected, Expression expression) {
+        if (expected == Kind.INTEGER && !integral && Kind.isIntegral(expression)) {
+            integral = true;
+            expression.accept(this);
+            integral = false;
+            return;
+        }
+
+        Kind actual = expression.accept(this);
+        if (actual == expected) return;
+
+        switch (expected) {
+            case INTEGER:
+                emit(actual == Kind.NUMBER ? OpCode.N2L : actual == Kind.BOOLEAN ? OpCode.B2L : OpCode.S2L);
+                break;
+            case NUMBER:
+                emit(actual == Kind.INTEGER ? OpCode.L2N : actual == Kind.BOOLEAN ? OpCode.B2N : OpCode.S2N);
+                break;
+            case BOOLEAN:
+                emit(actual == Kind.INTEGER ? OpCode.L2B : actual == Kind.NUMBER ? OpCode.N2B : OpCode.S2B);
+                break;
+            default:
+                ErrorHandler.handleTypeMismatchExpectedCharacter();
+        }
+    }
+
+    private void emitStore(Kind kind, int slot) {
+        switch (kind) {
+            case INTEGER: emit(OpCode.LSTORE, slot); break;
+            case NUMBER: emit(OpCode.NSTORE, slot); break;
+            case BOOLEAN: emit(OpCode.BSTORE, slot); break;
+            default: emit(OpCode.SSTORE, slot); break;
+        }
+    }
+
+    private int constant(Object value) {
+        Integer index = constantIndex.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndex.put(value, index);
+        }
+        return index;
+    }
+
+    private int emitJump(int opcode) {
+        emit(opcode, -1);
+        return size - 1;
+    }
+
+    // Points the jump operand at the next instruction to be emitted
+    private void patch(int operandIndex) {
+        code[operandIndex] = size;
+    }
+
+    private void emit(int opcode, int operand) {
+        emit(opcode);
+        emitOperand(operand);
+    }
+
+    private void emit(int opcode) {
+        emitOperand(opcode);
+        depth += stackEffect(opcode);
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private void emitOperand(int value) {
+        if (size == code.length) {
+            code = Arrays.copyOf(code, size * 2);
+        }
+        code[size++] = value;
+    }
+
+    private static int stackEffect(int opcode) {
+        switch (opcode) {
+            case OpCode.LCONST:
+            case OpCode.NCONST:
+            case OpCode.SCONST:
+            case OpCode.TRUE:
+            case OpCode.FALSE:
+            case OpCode.LLOAD:
+            case OpCode.NLOAD:
+            case OpCode.BLOAD:
+            case OpCode.SLOAD:
+            case OpCode.LDUP:
+            case OpCode.NDUP:
+            case OpCode.BDUP:
+            case OpCode.SDUP:
+                return 1;
+            case OpCode.LSTORE:
+            case OpCode.NSTORE:
+            case OpCode.BSTORE:
+            case OpCode.SSTORE:
+            case OpCode.LADD:
+            case OpCode.LSUB:
+            case OpCode.LMUL:
+            case OpCode.LDIV:
+            case OpCode.LMOD:
+            case OpCode.NADD:
+            case OpCode.NSUB:
+            case OpCode.NMUL:
+            case OpCode.NDIV:
+            case OpCode.NMOD:
+            case OpCode.LLT:
+            case OpCode.LGT:
+            case OpCode.LLE:
+            case OpCode.LGE:
+            case OpCode.LEQ:
+            case OpCode.LNE:
+            case OpCode.NLT:
+            case OpCode.NGT:
+            case OpCode.NLE:
+            case OpCode.NGE:
+            case OpCode.NEQ:
+            case OpCode.NNE:
+            case OpCode.BEQ:
+            case OpCode.BNE:
+            case OpCode.CMP:
+            case OpCode.JUMP_IF_FALSE:
+            case OpCode.LSWITCH:
+            case OpCode.EMIT_NUMERO:
+            case OpCode.EMIT_TIPIK:
+            case OpCode.EMIT_NUMBER:
+            case OpCode.EMIT_TINUOD:
+            case OpCode.EMIT_LETRA:
+                return -1;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package vm;
+
+// Instruction set of the Bisaya++ VM. Operands follow the opcode inline in Chunk.code.
+// NUMERO (long), TIPIK (double), TINUOD and LETRA values live on separate unboxed stacks,
+// so every instruction that moves a value names the stack it uses.
+public final class OpCode {
+    private OpCode() {
+    }
+
+    public static final int HALT = 0;
+    public static final int LCONST = 1;         // index  -> push constants[index] as a NUMERO
+    public static final int NCONST = 2;         // index  -> push constants[index] as a number
+    public static final int SCONST = 3;         // index  -> push constants[index] as a string
+    public static final int TRUE = 4;
+    public static final int FALSE = 5;
+
+    public static final int LLOAD = 10;         // slot
+    public static final int NLOAD = 11;
+    public static final int BLOAD = 12;
+    public static final int SLOAD = 13;
+    public static final int LSTORE = 14;        // slot, pops the value
+    public static final int NSTORE = 15;
+    public static final int BSTORE = 16;
+    public static final int SSTORE = 17;
+
+    public static final int LDUP = 20;
+    public static final int NDUP = 21;
+    public static final int BDUP = 22;
+    public static final int SDUP = 23;
+
+    public static final int LADD = 30;          // NUMERO arithmetic fails on overflow
+    public static final int LSUB = 31;
+    public static final int LMUL = 32;
+    public static final int LDIV = 33;
+    public static final int LMOD = 34;
+    public static final int LNEG = 35;
+
+    public static final int NADD = 40;
+    public static final int NSUB = 41;
+    public static final int NMUL = 42;
+    public static final int NDIV = 43;
+    public static final int NMOD = 44;
+    public static final int NNEG = 45;
+
+    public static final int LLT = 50;
+    public static final int LGT = 51;
+    public static final int LLE = 52;
+    public static final int LGE = 53;
+    public static final int LEQ = 54;
+    public static final int LNE = 55;
+
+    public static final int NLT = 60;
+    public static final int NGT = 61;
+    public static final int NLE = 62;
+    public static final int NGE = 63;
+    public static final int NEQ = 64;
+    public static final int NNE = 65;
+    public static final int BEQ = 66;
+    public static final int BNE = 67;
+    public static final int CMP = 68;           // operator ordinal, left Kind, right Kind; compares against LETRA
+    public static final int NOT = 69;
+
+    public static final int L2N = 70;           // NUMERO -> number
+    public static final int N2L = 71;           // number -> NUMERO, truncating; fails when out of range
+    public static final int B2L = 72;           // TINUOD -> NUMERO
+    public static final int B2N = 73;           // TINUOD -> number
+    public static final int S2L = 74;           // LETRA -> NUMERO
+    public static final int S2N = 75;           // LETRA -> number
+    public static final int L2B = 76;           // NUMERO -> TINUOD
+    public static final int N2B = 77;           // number -> TINUOD
+    public static final int S2B = 78;           // LETRA -> TINUOD
+
+    public static final int JUMP = 80;          // target
+    public static final int JUMP_IF_FALSE = 81; // target, pops the condition
+    public static final int LSWITCH = 82;       // index of a sorted long[] of keys, default target, one target
+                                                // per key; pops a NUMERO and jumps to its key's target
+
+    public static final int EMIT_TEXT = 90;     // index of a String constant
+    public static final int EMIT_NUMERO = 91;   // pops a NUMERO
+    public static final int EMIT_TIPIK = 92;    // pops a number, printed as a decimal
+    public static final int EMIT_NUMBER = 93;   // pops a number expression result
+    public static final int EMIT_TINUOD = 94;
+    public static final int EMIT_LETRA = 95;
+    public static final int EMIT_LINE = 96;     // '$': writes the pending line
+    public static final int EMIT_END = 97;      // end of IPAKITA: writes the pending line if not empty
+
+    public static final int INPUT = 100;        // constant int[] slots, constant String[] names
+}
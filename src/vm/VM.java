@@ -0,0 +1,380 @@
+package vm;
+
+import ast.Operator;
+import runtime.Frame;
+import runtime.Input;
+import runtime.Kind;
+import runtime.Output;
+import runtime.Values;
+
+import java.util.Arrays;
+
+// Executes a Chunk. Dispatch is a single int switch per instruction; each VM owns its
+// variable slots, so a Chunk can be run any number of times. NUMERO, TIPIK, TINUOD and
+// LETRA values each have their own primitive stack, so arithmetic never boxes.
+public class VM {
+    private static final Operator[] OPERATORS = Operator.values();
+
+    private final Chunk chunk;
+    private final Frame frame;
+    private final long[] integers;
+    private final double[] numbers;
+    private final boolean[] booleans;
+    private final String[] strings;
+    private final Output output;
+    private final Input input;
+
+    public VM(Chunk chunk) {
+        this(chunk, new Frame(chunk.slotTypes), Output.standard(), Input.standard());
+    }
+
+    // Runs the chunk against an existing set of variables, e.g. the interpreter's. Without
+    // output and input the chunk must not print or read, which holds for Compiler.compileExpression chunks.
+    public VM(Chunk chunk, Frame frame) {
+        this(chunk, frame, null, null);
+    }
+
+    public VM(Chunk chunk, Frame frame, Output output, Input input) {
+        this.chunk = chunk;
+        this.frame = frame;
+        this.integers = new long[chunk.maxStack];
+        this.numbers = new double[chunk.maxStack];
+        this.booleans = new boolean[chunk.maxStack];
+        this.strings = new String[chunk.maxStack];
+        this.output = output;
+        this.input = input;
+    }
+
+    // Output is flushed when the program ends, normally or not
+    public void run() {
+        if (output == null) {
+            execute();
+            return;
+        }
+        try {
+            execute();
+        } finally {
+            output.endOfRun();
+        }
+    }
+
+    private void execute() {
+        final int[] code = chunk.code;
+        final Object[] constants = chunk.constants;
+        final long[] integers = this.integers;
+        final double[] numbers = this.numbers;
+        final boolean[] booleans = this.booleans;
+        final String[] strings = this.strings;
+        final long[] integerSlots = frame.integers;
+        final double[] numberSlots = frame.numbers;
+        final boolean[] booleanSlots = frame.booleans;
+        final String[] stringSlots = frame.strings;
+        final Output output = this.output;
+        int lsp = 0;
+        int nsp = 0;
+        int bsp = 0;
+        int ssp = 0;
+        int pc = 0;
+
+        while (true) {
+            switch (code[pc++]) {
+                case OpCode.HALT:
+                    return;
+                case OpCode.LCONST:
+                    integers[lsp++] = (Long) constants[code[pc++]];
+                    break;
+                case OpCode.NCONST:
+                    numbers[nsp++] = (Double) constants[code[pc++]];
+                    break;
+                case OpCode.SCONST:
+                    strings[ssp++] = (String) constants[code[pc++]];
+                    break;
+                case OpCode.TRUE:
+                    booleans[bsp++] = true;
+                    break;
+                case OpCode.FALSE:
+                    booleans[bsp++] = false;
+                    break;
+
+                case OpCode.LLOAD:
+                    integers[lsp++] = integerSlots[code[pc++]];
+                    break;
+                case OpCode.NLOAD:
+                    numbers[nsp++] = numberSlots[code[pc++]];
+                    break;
+                case OpCode.BLOAD:
+                    booleans[bsp++] = booleanSlots[code[pc++]];
+                    break;
+                case OpCode.SLOAD:
+                    strings[ssp++] = stringSlots[code[pc++]];
+                    break;
+                case OpCode.LSTORE:
+                    integerSlots[code[pc++]] = integers[--lsp];
+                    break;
+                case OpCode.NSTORE:
+                    numberSlots[code[pc++]] = numbers[--nsp];
+                    break;
+                case OpCode.BSTORE:
+                    booleanSlots[code[pc++]] = booleans[--bsp];
+                    break;
+                case OpCode.SSTORE:
+                    stringSlots[code[pc++]] = strings[--ssp];
+                    break;
+                case OpCode.LDUP:
+                    integers[lsp] = integers[lsp - 1];
+                    lsp++;
+                    break;
+                case OpCode.NDUP:
+                    numbers[nsp] = numbers[nsp - 1];
+                    nsp++;
+                    break;
+                case OpCode.BDUP:
+                    booleans[bsp] = booleans[bsp - 1];
+                    bsp++;
+                    break;
+                case OpCode.SDUP:
+                    strings[ssp] = strings[ssp - 1];
+                    ssp++;
+                    break;
+
+                case OpCode.LADD: {
+                    long b = integers[--lsp];
+                    integers[lsp - 1] = Values.add(integers[lsp - 1], b);
+                    break;
+                }
+                case OpCode.LSUB: {
+                    long b = integers[--lsp];
+                    integers[lsp - 1] = Values.subtract(integers[lsp - 1], b);
+                    break;
+                }
+                case OpCode.LMUL: {
+                    long b = integers[--lsp];
+                    integers[lsp - 1] = Values.multiply(integers[lsp - 1], b);
+                    break;
+                }
+                case OpCode.LDIV: {
+                    long b = integers[--lsp];
+                    integers[lsp - 1] = Values.divide(integers[lsp - 1], b);
+                    break;
+                }
+                case OpCode.LMOD: {
+                    long b = integers[--lsp];
+                    integers[lsp - 1] = Values.remainder(integers[lsp - 1], b);
+                    break;
+                }
+                case OpCode.LNEG:
+                    integers[lsp - 1] = Values.negate(integers[lsp - 1]);
+                    break;
+
+                case OpCode.NADD: {
+                    double b = numbers[--nsp];
+                    numbers[nsp - 1] += b;
+                    break;
+                }
+                case OpCode.NSUB: {
+                    double b = numbers[--nsp];
+                    numbers[nsp - 1] -= b;
+                    break;
+                }
+                case OpCode.NMUL: {
+                    double b = numbers[--nsp];
+                    numbers[nsp - 1] *= b;
+                    break;
+                }
+                case OpCode.NDIV: {
+                    double b = numbers[--nsp];
+                    numbers[nsp - 1] = Values.divide(numbers[nsp - 1], b);
+                    break;
+                }
+                case OpCode.NMOD: {
+                    double b = numbers[--nsp];
+                    numbers[nsp - 1] = Values.remainder(numbers[nsp - 1], b);
+                    break;
+                }
+                case OpCode.NNEG:
+                    numbers[nsp - 1] = -numbers[nsp - 1];
+                    break;
+
+                case OpCode.LLT:
+                    lsp -= 2;
+                    booleans[bsp++] = integers[lsp] < integers[lsp + 1];
+                    break;
+                case OpCode.LGT:
+                    lsp -= 2;
+                    booleans[bsp++] = integers[lsp] > integers[lsp + 1];
+                    break;
+                case OpCode.LLE:
+                    lsp -= 2;
+                    booleans[bsp++] = integers[lsp] <= integers[lsp + 1];
+                    break;
+                case OpCode.LGE:
+                    lsp -= 2;
+                    booleans[bsp++] = integers[lsp] >= integers[lsp + 1];
+                    break;
+                case OpCode.LEQ:
+                    lsp -= 2;
+                    booleans[bsp++] = integers[lsp] == integers[lsp + 1];
+                    break;
+                case OpCode.LNE:
+                    lsp -= 2;
+                    booleans[bsp++] = integers[lsp] != integers[lsp + 1];
+                    break;
+                case OpCode.NLT:
+                    nsp -= 2;
+                    booleans[bsp++] = numbers[nsp] < numbers[nsp + 1];
+                    break;
+                case OpCode.NGT:
+                    nsp -= 2;
+                    booleans[bsp++] = numbers[nsp] > numbers[nsp + 1];
+                    break;
+                case OpCode.NLE:
+                    nsp -= 2;
+                    booleans[bsp++] = numbers[nsp] <= numbers[nsp + 1];
+                    break;
+                case OpCode.NGE:
+                    nsp -= 2;
+                    booleans[bsp++] = numbers[nsp] >= numbers[nsp + 1];
+                    break;
+                case OpCode.NEQ:
+                    nsp -= 2;
+                    booleans[bsp++] = numbers[nsp] == numbers[nsp + 1];
+                    break;
+                case OpCode.NNE:
+                    nsp -= 2;
+                    booleans[bsp++] = numbers[nsp] != numbers[nsp + 1];
+                    break;
+                case OpCode.BEQ: {
+                    boolean b = booleans[--bsp];
+                    booleans[bsp - 1] = booleans[bsp - 1] == b;
+                    break;
+                }
+                case OpCode.BNE: {
+                    boolean b = booleans[--bsp];
+                    booleans[bsp - 1] = booleans[bsp - 1] != b;
+                    break;
+                }
+                case OpCode.CMP: {
+                    // Comparisons against LETRA are the only ones that box; they parse strings anyway
+                    Operator op = OPERATORS[code[pc++]];
+                    Kind leftKind = Kind.of(code[pc++]);
+                    Kind rightKind = Kind.of(code[pc++]);
+                    Object right;
+                    switch (rightKind) {
+                        case INTEGER: right = integers[--lsp]; break;
+                        case NUMBER: right = numbers[--nsp]; break;
+                        case BOOLEAN: right = booleans[--bsp]; break;
+                        default: right = strings[--ssp]; break;
+                    }
+                    Object left;
+                    switch (leftKind) {
+                        case INTEGER: left = integers[--lsp]; break;
+                        case NUMBER: left = numbers[--nsp]; break;
+                        case BOOLEAN: left = booleans[--bsp]; break;
+                        default: left = strings[--ssp]; break;
+                    }
+                    booleans[bsp++] = Values.compareMixed(op, left, right);
+                    break;
+                }
+                case OpCode.NOT:
+                    booleans[bsp - 1] = !booleans[bsp - 1];
+                    break;
+
+                case OpCode.L2N:
+                    numbers[nsp++] = integers[--lsp];
+                    break;
+                case OpCode.N2L:
+                    integers[lsp++] = Values.toInteger(numbers[--nsp]);
+                    break;
+                case OpCode.B2L:
+                    integers[lsp++] = booleans[--bsp] ? 1 : 0;
+                    break;
+                case OpCode.S2L:
+                    integers[lsp++] = Values.toInteger(strings[--ssp]);
+                    break;
+                case OpCode.L2B:
+                    booleans[bsp++] = integers[--lsp] != 0;
+                    break;
+                case OpCode.B2N:
+                    numbers[nsp++] = booleans[--bsp] ? 1.0 : 0.0;
+                    break;
+                case OpCode.S2N:
+                    numbers[nsp++] = Values.toNumber(strings[--ssp]);
+                    break;
+                case OpCode.N2B:
+                    booleans[bsp++] = numbers[--nsp] != 0;
+                    break;
+                case OpCode.S2B:
+                    booleans[bsp++] = Values.toBoolean(strings[--ssp]);
+                    break;
+
+                case OpCode.JUMP:
+                    pc = code[pc];
+                    break;
+                case OpCode.JUMP_IF_FALSE:
+                    if (booleans[--bsp]) {
+                        pc++;
+                    } else {
+                        pc = code[pc];
+                    }
+                    break;
+
+                case OpCode.LSWITCH: {
+                    int index = Arrays.binarySearch((long[]) constants[code[pc]], integers[--lsp]);
+                    pc = code[pc + (index >= 0 ? 2 + index : 1)];
+                    break;
+                }
+
+                case OpCode.EMIT_TEXT:
+                    output.print((String) constants[code[pc++]]);
+                    break;
+                case OpCode.EMIT_NUMERO:
+                    output.print(integers[--lsp]);
+                    break;
+                case OpCode.EMIT_TIPIK:
+                    output.print(numbers[--nsp]);
+                    break;
+                case OpCode.EMIT_LETRA:
+                    output.print(strings[--ssp]);
+                    break;
+                case OpCode.EMIT_NUMBER:
+                    output.printNumber(numbers[--nsp]);
+                    break;
+                case OpCode.EMIT_TINUOD:
+                    output.print(booleans[--bsp]);
+                    break;
+                case OpCode.EMIT_LINE:
+                    output.newline();
+                    break;
+                case OpCode.EMIT_END:
+                    output.endLine();
+                    break;
+
+                case OpCode.INPUT:
+                    output.prompt("Enter values: ");
+                    input.read(frame, (int[]) constants[code[pc]], (String[]) constants[code[pc + 1]]);
+                    pc += 2;
+                    break;
+
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[pc - 1] + " at " + (pc - 1));
+            }
+        }
+    }
+
+    // The value an expression chunk (Compiler.compileExpression) leaves behind after run()
+    public long integerResult() {
+        return integers[0];
+    }
+
+    public double numberResult() {
+        return numbers[0];
+    }
+
+    public boolean booleanResult() {
+        return booleans[0];
+    }
+
+    public String stringResult() {
+        return strings[0];
+    }
+}
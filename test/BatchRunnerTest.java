@@ -0,0 +1,77 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// --batch globs: **/ spans zero or more directories, so base/**/*.txt also takes the .txt
+// files directly in base, and a directory alone means its own .txt files. A script that
+// fails does not stop the others. Run with: sh test/run-tests.sh
+public class BatchRunnerTest {
+    private static final String PROGRAM = "SUGOD\nIPAKITA: \"ok\"\nKATAPUSAN\n";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path base = Files.createTempDirectory("bisaya-batch-test");
+        try {
+            for (String script : new String[] {"top.txt", "sub/mid.txt", "sub/deeper/low.txt"}) {
+                write(base.resolve(script), PROGRAM);
+            }
+            write(base.resolve("sub/bad.txt"), "SUGOD\nIPAKITA: undefined\nKATAPUSAN\n");
+            write(base.resolve("notes.md"), PROGRAM);
+            write(base.resolve("sub/deeper/data.csv"), "1,2\n");
+
+            check(base, base.toString(), List.of("top.txt"));
+            check(base, base + "/**/*.txt",
+                    List.of("sub/bad.txt", "sub/deeper/low.txt", "sub/mid.txt", "top.txt"));
+            check(base, base + "/**/**/*.txt",
+                    List.of("sub/bad.txt", "sub/deeper/low.txt", "sub/mid.txt", "top.txt"));
+            check(base, base + "/sub/**/*.txt", List.of("bad.txt", "deeper/low.txt", "mid.txt"));
+            check(base, base + "/**/deeper/*.txt", List.of("sub/deeper/low.txt"));
+            check(base, base + "/**/top.txt", List.of("top.txt"));
+        } finally {
+            delete(base);
+        }
+        System.out.println("BatchRunnerTest passed");
+    }
+
+    // Runs the batch into a fresh output directory and compares the scripts that got an output
+    // file. Every script but sub/bad.txt must have printed "ok".
+    private static void check(Path base, String pattern, List<String> expected) throws IOException, InterruptedException {
+        Path out = Files.createTempDirectory(base.getParent(), "bisaya-batch-out");
+        try {
+            new BatchRunner(pattern, out).run();
+            List<String> ran;
+            try (Stream<Path> files = Files.walk(out)) {
+                ran = files.filter(Files::isRegularFile)
+                        .map(file -> out.relativize(file).toString().replaceAll("\\.out$", ""))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            if (!ran.equals(expected)) {
+                throw new AssertionError(pattern + ": expected " + expected + " but ran " + ran);
+            }
+            for (String script : ran) {
+                String output = Files.readString(out.resolve(script + ".out"));
+                String wanted = script.endsWith("bad.txt") ? "" : "ok\n";
+                if (!output.equals(wanted)) {
+                    throw new AssertionError(pattern + ": " + script + " printed \"" + output + "\"");
+                }
+            }
+        } finally {
+            delete(out);
+        }
+    }
+
+    private static void write(Path file, String text) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, text);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import ast.Program;
+import jit.TieredExecutor;
+import lexer.Lexer;
+import lexer.TokenStream;
+import optimizer.Optimizer;
+import parser.Parser;
+import resolver.Resolver;
+import runtime.Frame;
+import runtime.Input;
+import runtime.Output;
+import vm.Chunk;
+import vm.ChunkCache;
+import vm.Compiler;
+import vm.VM;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// A chunk read back from the cache must equal the one stored, including the int[] of slots
+// and the String[] of field names each DAWAT keeps in the constant pool, and must run the
+// same on the VM and the JIT. Run with: sh test/run-tests.sh
+public class ChunkCacheTest {
+    private static final String PROGRAM = String.join("\n",
+            "SUGOD",
+            "MUGNA NUMERO a, n",
+            "MUGNA LETRA word",
+            "MUGNA TIPIK x",
+            "MUGNA TINUOD flag",
+            "DAWAT: a, word, x",
+            "DAWAT: flag, n",
+            "IPAKITA: a * 2 & \",\" & word & \",\" & x & \",\" & flag & \",\" & n",
+            "KATAPUSAN");
+
+    private static final String INPUT = "3,ok,1.5\nOO,7\n";
+    private static final String EXPECTED = "6,ok,1.5,OO,7\n";
+
+    public static void main(String[] args) throws IOException {
+        Program program = new Optimizer().optimize(
+                new Resolver().resolve(new Parser(new TokenStream(new Lexer(PROGRAM))).parse()));
+        Chunk chunk = new Compiler().compile(program);
+
+        Path directory = Files.createTempDirectory("bisaya-cache-test");
+        try {
+            ChunkCache cache = new ChunkCache(directory, 1 << 20);
+            String key = ChunkCache.key(ByteBuffer.wrap(PROGRAM.getBytes(StandardCharsets.UTF_8)), true);
+            cache.store(key, chunk);
+            Chunk loaded = cache.load(key);
+            if (loaded == null) {
+                throw new AssertionError("the stored chunk could not be loaded");
+            }
+
+            check("code", Arrays.toString(chunk.code), Arrays.toString(loaded.code));
+            check("slot names", Arrays.toString(chunk.slotNames), Arrays.toString(loaded.slotNames));
+            check("slot types", Arrays.toString(chunk.slotTypes), Arrays.toString(loaded.slotTypes));
+            check("constants", Arrays.deepToString(chunk.constants), Arrays.deepToString(loaded.constants));
+            int slots = 0, names = 0;
+            for (int i = 0; i < chunk.constants.length; i++) {
+                Object constant = loaded.constants[i];
+                check("constant " + i + " class", chunk.constants[i].getClass(), constant.getClass());
+                slots += constant instanceof int[] ? 1 : 0;
+                names += constant instanceof String[] ? 1 : 0;
+            }
+            check("DAWAT slot arrays", 2, slots);
+            check("DAWAT field name arrays", 2, names);
+
+            for (Chunk run : new Chunk[] {chunk, loaded}) {
+                String which = run == chunk ? "compiled" : "loaded";
+                check(which + " on the vm", EXPECTED,
+                        run((output, input) -> new VM(run, new Frame(run.slotTypes), output, input).run()));
+                TieredExecutor executor = new TieredExecutor(run, 1);
+                check(which + " on the jit", EXPECTED, run(executor::run));
+                if (!executor.isCompiled()) {
+                    throw new AssertionError(which + ": the chunk was not compiled");
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+        System.out.println("ChunkCacheTest passed");
+    }
+
+    // Output is batched so that the DAWAT prompts are left out
+    private static String run(Engine engine) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Output output = new Output(Channels.newChannel(buffer));
+        output.batch();
+        engine.run(output, new Input(Channels.newChannel(
+                new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.UTF_8)))));
+        output.flush();
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void check(String what, Object expected, Object actual) {
+        if (!actual.equals(expected)) {
+            throw new AssertionError(what + ": expected\n" + expected + "\nbut got\n" + actual);
+        }
+    }
+
+    private interface Engine {
+        void run(Output output, Input input);
+    }
+}
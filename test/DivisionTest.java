@@ -0,0 +1,84 @@
+import ast.Program;
+import interpreter.Interpreter;
+import jit.TieredExecutor;
+import lexer.Lexer;
+import lexer.TokenStream;
+import optimizer.Optimizer;
+import parser.Parser;
+import resolver.Resolver;
+import runtime.Frame;
+import runtime.Input;
+import runtime.Output;
+import vm.Chunk;
+import vm.Compiler;
+import vm.VM;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+// NUMERO / NUMERO truncates only when the result goes into a NUMERO; stored into a TIPIK or
+// printed it divides as TIPIK. Every engine must agree. Run with: sh test/run-tests.sh
+public class DivisionTest {
+    private static final String PROGRAM = String.join("\n",
+            "SUGOD",
+            "MUGNA TIPIK h = 10 / 4",
+            "MUGNA NUMERO n = 10 / 4, m = 7, k",
+            "MUGNA TIPIK t",
+            "k = m / 2 * 2",
+            "t = m / 2 * 2",
+            "IPAKITA: h & \",\" & n & \",\" & k & \",\" & t",
+            "IPAKITA: 7 / 2",
+            "IPAKITA: m / 2",
+            "MUGNA NUMERO j = 7 / 2 * 2",
+            "MUGNA TINUOD b = 7 / 2 > 3, e = m / 2 * 2 == 7",
+            "IPAKITA: j & \",\" & b & \",\" & e",
+            "KATAPUSAN");
+
+    private static final String EXPECTED = "2.5,2,6,7.0\n3.5\n3.5\n6,OO,OO\n";
+
+    public static void main(String[] args) {
+        for (boolean optimize : new boolean[] {true, false}) {
+            Program program = frontEnd(optimize);
+            Chunk chunk = new Compiler().compile(program);
+
+            check("interpreter", optimize, run(output -> new Interpreter(output, noInput()).execute(program)));
+            check("vm", optimize, run(output -> new VM(chunk, new Frame(chunk.slotTypes), output, noInput()).run()));
+            // The first run stays on the VM, the second one compiles and runs JVM bytecode
+            TieredExecutor executor = new TieredExecutor(chunk, 2);
+            check("tiered", optimize, run(output -> executor.run(output, noInput())));
+            check("jit", optimize, run(output -> executor.run(output, noInput())));
+            if (!executor.isCompiled()) {
+                throw new AssertionError("jit" + (optimize ? "" : " (unoptimized)") + ": the chunk was not compiled");
+            }
+        }
+        System.out.println("DivisionTest passed");
+    }
+
+    private static Program frontEnd(boolean optimize) {
+        Program program = new Resolver().resolve(new Parser(new TokenStream(new Lexer(PROGRAM))).parse());
+        return optimize ? new Optimizer().optimize(program) : program;
+    }
+
+    private static String run(Engine engine) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        engine.run(new Output(Channels.newChannel(buffer)));
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Input noInput() {
+        return new Input(Channels.newChannel(new ByteArrayInputStream(new byte[0])));
+    }
+
+    private static void check(String engine, boolean optimize, String actual) {
+        if (!actual.equals(EXPECTED)) {
+            throw new AssertionError(engine + (optimize ? "" : " (unoptimized)") + ": expected\n"
+                    + EXPECTED + "but got\n" + actual);
+        }
+    }
+
+    private interface Engine {
+        void run(Output output);
+    }
+}
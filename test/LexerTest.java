@@ -0,0 +1,70 @@
+import lexer.Lexer;
+import lexer.TokenBuffer;
+
+// Keywords are only whole words the keyword trie accepts, so a word that starts or ends like
+// one stays an identifier, and two-character operators win over their first character.
+// Checks each token's type, text and offset. Run with: sh test/run-tests.sh
+public class LexerTest {
+    private static final String SOURCE = String.join("\n",
+            "MUGNA NUMERO OOPS=3, SUGODNA = 4",
+            "KUNG WALA kung x_1 ñino DILIMAN OO DILI",
+            "<= <> >= == && := : < > = & , ( ) { } [ ] 12 12.5 -- a comment, KUNG",
+            "“hi” ‘c’ \"\" IPAKITA");
+
+    private static final String EXPECTED = String.join("\n",
+            "KEYWORD MUGNA @0",
+            "IDENTIFIER NUMERO @6", // type names are read by the parser, not the trie
+            "IDENTIFIER OOPS @13",
+            "OPERATOR = @17",
+            "NUMERO 3 @18",
+            "COMMA , @19",
+            "IDENTIFIER SUGODNA @21",
+            "OPERATOR = @29",
+            "NUMERO 4 @31",
+            "KEYWORD KUNG @33",
+            "KEYWORD WALA @38",
+            "IDENTIFIER kung @43",
+            "IDENTIFIER x_1 @48",
+            "IDENTIFIER ñino @52",
+            "IDENTIFIER DILIMAN @57",
+            "TINUOD OO @65",
+            "TINUOD DILI @68",
+            "OPERATOR <= @73",
+            "OPERATOR <> @76",
+            "OPERATOR >= @79",
+            "OPERATOR == @82",
+            "OPERATOR && @85",
+            "OPERATOR := @88",
+            "COLON : @91",
+            "OPERATOR < @93",
+            "OPERATOR > @95",
+            "OPERATOR = @97",
+            "OPERATOR & @99",
+            "COMMA , @101",
+            "LPAREN ( @103",
+            "RPAREN ) @105",
+            "LEFTBRACE { @107",
+            "RIGHTBRACE } @109",
+            "LEFTESCAPEBRACKET [ @111",
+            "RIGHTESCAPEBRACKET ] @113",
+            "NUMERO 12 @115",
+            "TIPIK 12.5 @118",
+            "LETRA hi @142",
+            "LETRA c @147",
+            "LETRA  @151",
+            "KEYWORD IPAKITA @154",
+            "");
+
+    public static void main(String[] args) {
+        TokenBuffer tokens = new Lexer(SOURCE).tokenize();
+        StringBuilder actual = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            actual.append(tokens.type(i)).append(' ').append(tokens.text(i)).append(" @").append(tokens.offset(i))
+                    .append('\n');
+        }
+        if (!actual.toString().equals(EXPECTED)) {
+            throw new AssertionError("expected\n" + EXPECTED + "but got\n" + actual);
+        }
+        System.out.println("LexerTest passed");
+    }
+}
@@ -0,0 +1,133 @@
+import ast.IfStatement;
+import ast.Program;
+import ast.Statement;
+import ast.VariableDeclaration;
+import interpreter.Interpreter;
+import lexer.Lexer;
+import lexer.TokenStream;
+import optimizer.Optimizer;
+import parser.Parser;
+import resolver.Resolver;
+import runtime.Frame;
+import runtime.Input;
+import runtime.Output;
+import vm.Chunk;
+import vm.Compiler;
+import vm.VM;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Constant propagation drops the declarations of variables that only ever get a constant,
+// keeps the ones that are assigned again, and a KUNG decided by constants loses its dead
+// arms. The optimized program must print what the original does. Run with: sh test/run-tests.sh
+public class OptimizerTest {
+    private static final String PROGRAM = String.join("\n",
+            "SUGOD",
+            "MUGNA NUMERO rate = 3, count = 0",
+            "MUGNA TIPIK half = 0.5",
+            "count = count + rate",
+            "KUNG (rate > 5)",
+            "PUNDOK{ IPAKITA: \"never\" }",
+            "KUNG DILI (rate == 3)",
+            "PUNDOK{",
+            "    MUGNA NUMERO inner = rate * 2 + 1",
+            "    IPAKITA: inner",
+            "}",
+            "KUNG WALA",
+            "PUNDOK{ IPAKITA: \"never either\" }",
+            "IPAKITA: rate * 2 & \",\" & count & \",\" & half",
+            "KATAPUSAN");
+
+    private static final String EXPECTED = "7\n6,3,0.5\n";
+
+    // Running a division by zero that cannot be folded must still fail, and only then
+    private static final String FAILING = String.join("\n",
+            "SUGOD",
+            "MUGNA NUMERO zero = 0, ten = 10",
+            "IPAKITA: \"before\"",
+            "MUGNA NUMERO broken = ten / zero",
+            "KATAPUSAN");
+
+    public static void main(String[] args) {
+        Optimizer optimizer = new Optimizer();
+        Program original = frontEnd(PROGRAM);
+        Program optimized = optimizer.optimize(original);
+
+        List<String> declared = declaredNames(optimized.statements);
+        check("declarations left", List.of("count"), declared);
+        for (Statement statement : optimized.statements) {
+            if (statement instanceof IfStatement) {
+                throw new AssertionError("the KUNG decided by constants is still there");
+            }
+        }
+        for (String expected : new String[] {"propagated constant rate = 3", "propagated constant half = 0.5",
+                "propagated constant inner = 7", "removed KUNG (rate > 5): never runs"}) {
+            if (!optimizer.report().contains(expected)) {
+                throw new AssertionError("no \"" + expected + "\" in the report " + optimizer.report());
+            }
+        }
+
+        for (Program program : new Program[] {original, optimized}) {
+            String which = program == original ? "original" : "optimized";
+            Chunk chunk = new Compiler().compile(program);
+            check(which + " on the interpreter", EXPECTED,
+                    run(output -> new Interpreter(output, noInput()).execute(program)));
+            check(which + " on the vm", EXPECTED,
+                    run(output -> new VM(chunk, new Frame(chunk.slotTypes), output, noInput()).run()));
+        }
+
+        Program failing = new Optimizer().optimize(frontEnd(FAILING));
+        Chunk chunk = new Compiler().compile(failing);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            new VM(chunk, new Frame(chunk.slotTypes), new Output(Channels.newChannel(buffer)), noInput()).run();
+            throw new AssertionError("ten / zero was folded away instead of failing at run time");
+        } catch (RuntimeException expected) {
+            // The error happens where it did in the original
+        }
+        check("output before the failure", "before\n", buffer.toString(StandardCharsets.UTF_8));
+
+        System.out.println("OptimizerTest passed");
+    }
+
+    private static Program frontEnd(String source) {
+        return new Resolver().resolve(new Parser(new TokenStream(new Lexer(source))).parse());
+    }
+
+    private static List<String> declaredNames(List<Statement> statements) {
+        List<String> names = new ArrayList<>();
+        for (Statement statement : statements) {
+            if (statement instanceof VariableDeclaration) {
+                for (VariableDeclaration.Declarator declarator : ((VariableDeclaration) statement).declarators) {
+                    names.add(declarator.name);
+                }
+            }
+        }
+        return names;
+    }
+
+    private static String run(Engine engine) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        engine.run(new Output(Channels.newChannel(buffer)));
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Input noInput() {
+        return new Input(Channels.newChannel(new ByteArrayInputStream(new byte[0])));
+    }
+
+    private static void check(String what, Object expected, Object actual) {
+        if (!actual.equals(expected)) {
+            throw new AssertionError(what + ": expected\n" + expected + "\nbut got\n" + actual);
+        }
+    }
+
+    private interface Engine {
+        void run(Output output);
+    }
+}
@@ -0,0 +1,68 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// --records runs the program once per input line with fresh variables. Each DAWAT takes its
+// slots and field names from arrays built once, so every record must come out as if the
+// program had been run on it alone, on the interpreter and on the VM as it hands over to the
+// JIT. Run with: sh test/run-tests.sh
+public class RecordsTest {
+    private static final String PROGRAM = String.join("\n",
+            "SUGOD",
+            "MUGNA LETRA name",
+            "MUGNA NUMERO quantity, price, total",
+            "DAWAT: name, quantity, price",
+            "KUNG (quantity > 0)",
+            "PUNDOK{ total = total + quantity * price }",
+            "IPAKITA: name & \"=\" & total",
+            "KATAPUSAN");
+
+    // More than the default JIT threshold, so the VM run ends up on compiled code
+    private static final int RECORDS = 1500;
+
+    public static void main(String[] args) throws IOException {
+        Path program = Files.createTempFile("records", ".txt");
+        Path records = Files.createTempFile("records", ".csv");
+        try {
+            Files.writeString(program, PROGRAM);
+            StringBuilder input = new StringBuilder();
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < RECORDS; i++) {
+                input.append("item").append(i).append(',').append(i % 7).append(',').append(i % 11).append('\n');
+                // total starts from 0 on every record
+                expected.append("item").append(i).append('=').append((i % 7) * (i % 11)).append('\n');
+            }
+            Files.writeString(records, input);
+
+            check("interpreter", expected.toString(), run("--interpret", "--records", records.toString(), program.toString()));
+            check("vm and jit", expected.toString(), run("--records", records.toString(), program.toString()));
+        } finally {
+            Files.deleteIfExists(program);
+            Files.deleteIfExists(records);
+        }
+        System.out.println("RecordsTest passed");
+    }
+
+    // Main's output without the banner it prints before running
+    private static String run(String... args) {
+        PrintStream standard = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(standard);
+        }
+        String output = buffer.toString(StandardCharsets.UTF_8);
+        return output.substring(output.indexOf("no error\n") + "no error\n".length());
+    }
+
+    private static void check(String engine, String expected, String actual) {
+        if (!actual.equals(expected)) {
+            throw new AssertionError(engine + ": expected\n" + expected + "but got\n" + actual);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import ast.Program;
+import ast.Statement;
+import ast.SwitchStatement;
+import interpreter.Interpreter;
+import jit.TieredExecutor;
+import lexer.Lexer;
+import lexer.TokenStream;
+import optimizer.Optimizer;
+import parser.Parser;
+import resolver.Resolver;
+import runtime.Frame;
+import runtime.Input;
+import runtime.Output;
+import vm.Chunk;
+import vm.Compiler;
+import vm.VM;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// A KUNG chain testing one NUMERO against constants becomes a jump table: keys sorted, a
+// repeated key only reaching its first arm, a key written first, and KUNG WALA for anything
+// else. Every engine must pick the arm the chain would. Run with: sh test/run-tests.sh
+public class SwitchTableTest {
+    private static final String PROGRAM = String.join("\n",
+            "SUGOD",
+            "MUGNA NUMERO x",
+            "DAWAT: x",
+            "KUNG (x == 3)",
+            "PUNDOK{ IPAKITA: \"three\" }",
+            "KUNG DILI (-5 == x)",
+            "PUNDOK{ IPAKITA: \"minus five\" }",
+            "KUNG DILI (x == 1)",
+            "PUNDOK{ IPAKITA: \"one\" }",
+            "KUNG DILI (x == 3)",
+            "PUNDOK{ IPAKITA: \"three again\" }",
+            "KUNG DILI (x == 100)",
+            "PUNDOK{ IPAKITA: \"hundred\" }",
+            "KUNG WALA",
+            "PUNDOK{ IPAKITA: \"other\" }",
+            "KATAPUSAN");
+
+    private static final long[] INPUTS = {3, -5, 1, 100, 0, 2, 7, -6, 101};
+    private static final String[] EXPECTED = {
+            "three", "minus five", "one", "hundred", "other", "other", "other", "other", "other"};
+
+    public static void main(String[] args) {
+        Optimizer optimizer = new Optimizer();
+        Program original = new Resolver().resolve(new Parser(new TokenStream(new Lexer(PROGRAM))).parse());
+        Program optimized = optimizer.optimize(original);
+
+        SwitchStatement table = null;
+        for (Statement statement : optimized.statements) {
+            if (statement instanceof SwitchStatement) {
+                table = (SwitchStatement) statement;
+            }
+        }
+        if (table == null) {
+            throw new AssertionError("the KUNG chain did not become a jump table: " + optimizer.report());
+        }
+        check("keys", Arrays.toString(new long[] {-5, 1, 3, 100}), Arrays.toString(table.keys));
+        if (optimizer.report().stream().noneMatch(line -> line.contains("dropped 1 arm(s)"))) {
+            throw new AssertionError("the repeated x == 3 arm is not reported as dropped: " + optimizer.report());
+        }
+
+        for (Program program : new Program[] {original, optimized}) {
+            String which = program == original ? "chain" : "table";
+            Chunk chunk = new Compiler().compile(program);
+            TieredExecutor executor = new TieredExecutor(chunk, 2);
+            for (int i = 0; i < INPUTS.length; i++) {
+                String expected = EXPECTED[i] + "\n";
+                long x = INPUTS[i];
+                check(which + " on the interpreter, x = " + x, expected,
+                        run(x, (output, input) -> new Interpreter(output, input).execute(program)));
+                check(which + " on the vm, x = " + x, expected,
+                        run(x, (output, input) -> new VM(chunk, new Frame(chunk.slotTypes), output, input).run()));
+                check(which + " on the jit, x = " + x, expected, run(x, executor::run));
+            }
+            if (!executor.isCompiled()) {
+                throw new AssertionError(which + ": the chunk was not compiled");
+            }
+        }
+        System.out.println("SwitchTableTest passed");
+    }
+
+    // Output is batched so that the DAWAT prompt is left out
+    private static String run(long x, Engine engine) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Output output = new Output(Channels.newChannel(buffer));
+        output.batch();
+        engine.run(output, new Input(Channels.newChannel(
+                new ByteArrayInputStream((x + "\n").getBytes(StandardCharsets.UTF_8)))));
+        output.flush();
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void check(String what, String expected, String actual) {
+        if (!actual.equals(expected)) {
+            throw new AssertionError(what + ": expected\n" + expected + "but got\n" + actual);
+        }
+    }
+
+    private interface Engine {
+        void run(Output output, Input input);
+    }
+}
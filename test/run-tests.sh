@@ -0,0 +1,15 @@
+#!/bin/sh
+# Compiles the sources and the tests into a scratch directory and runs the main of every
+# test/*Test.java, stopping at the first one that fails. Run from the project root:
+#   sh test/run-tests.sh
+set -e
+out=$(mktemp -d)
+trap 'rm -rf "$out"' EXIT
+
+javac -encoding UTF-8 -d "$out/classes" $(find src -name '*.java')
+cp -r src/META-INF "$out/classes/"
+javac -encoding UTF-8 -cp "$out/classes" -d "$out/tests" test/*.java
+
+for test in test/*Test.java; do
+    java -cp "$out/classes:$out/tests" "$(basename "$test" .java)"
+done